@@ -0,0 +1,39 @@
+package com.jeeapp.excel.builder;
+
+/**
+ * 把对象转换成一行单元格的值，由 {@link com.jeeapp.excel.processor.ExcelPropertyProcessor} 按 @ExcelProperty 生成
+ * @author Justice
+ */
+public interface RowWriter<T> {
+
+	/**
+	 * 列名，按列序排列，用于 {@link SheetBuilderHelper#createHeader(RowWriter)}
+	 */
+	String[] getNames();
+
+	/**
+	 * 列格式，按列序排列，和 {@link TableBuilder} 一样设置为列样式；返回 null 时不设置
+	 */
+	default String[] getFormats() {
+		return null;
+	}
+
+	/**
+	 * 列宽，按列序排列；返回 null 时不设置
+	 */
+	default int[] getWidths() {
+		return null;
+	}
+
+	/**
+	 * 列隐藏，按列序排列；返回 null 时不设置
+	 */
+	default boolean[] getHidden() {
+		return null;
+	}
+
+	/**
+	 * 单元格的值，按列序排列
+	 */
+	Object[] toCells(T bean);
+}
@@ -53,6 +53,42 @@ abstract class SheetBuilderHelper extends CellBuilderHelper<SheetBuilder> {
 		return self();
 	}
 
+	/**
+	 * 按行写入器的列名创建表头行，和 {@link TableBuilder} 一样先按列格式、列宽和列隐藏设置列样式
+	 */
+	public SheetBuilder createHeader(RowWriter<?> rowWriter) {
+		String[] names = rowWriter.getNames();
+		String[] formats = rowWriter.getFormats();
+		int[] widths = rowWriter.getWidths();
+		boolean[] hidden = rowWriter.getHidden();
+		if (formats != null || widths != null || hidden != null) {
+			for (int column = 0; column < names.length; column++) {
+				ColumnBuilder columnBuilder = matchingColumn(column);
+				if (widths != null) {
+					columnBuilder.setColumnWidth(widths[column]);
+				}
+				if (hidden != null) {
+					columnBuilder.setColumnHidden(hidden[column]);
+				}
+				if (formats != null) {
+					columnBuilder.setDataFormat(formats[column]);
+				}
+				columnBuilder.addCellStyle();
+			}
+		}
+		return createRow((Object[]) names);
+	}
+
+	/**
+	 * 按行写入器创建对象行，表头通过 {@link #createHeader(RowWriter)} 创建
+	 */
+	public <T> SheetBuilder createRows(Iterable<T> beans, RowWriter<T> rowWriter) {
+		for (T bean : beans) {
+			createRow(rowWriter.toCells(bean));
+		}
+		return self();
+	}
+
 	/**
 	 * 创建有值的单元格(支持公式)
 	 */
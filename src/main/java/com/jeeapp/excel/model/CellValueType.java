@@ -0,0 +1,38 @@
+package com.jeeapp.excel.model;
+
+/**
+ * 单元格原始值类型
+ * @author Justice
+ */
+public enum CellValueType {
+
+	/**
+	 * 空单元格
+	 */
+	BLANK,
+
+	/**
+	 * 字符串
+	 */
+	STRING,
+
+	/**
+	 * 数值，原始值保存在 {@link Row#getNumericValues()}
+	 */
+	NUMERIC,
+
+	/**
+	 * 日期格式的数值，原始值为 Excel 日期序列号
+	 */
+	DATE,
+
+	/**
+	 * 布尔值，原始值 1 为 true，0 为 false
+	 */
+	BOOLEAN,
+
+	/**
+	 * 错误值
+	 */
+	ERROR
+}
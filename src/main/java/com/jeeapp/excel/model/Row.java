@@ -3,12 +3,14 @@ package com.jeeapp.excel.model;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 
 import lombok.Data;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.poi.ss.usermodel.DateUtil;
 
 /**
  * @author Justice
@@ -24,10 +26,22 @@ public class Row implements Serializable {
 
 	private Set<Comment> comments;
 
+	/** 单元格原始值类型，仅在读取原始值时存在 */
+	private CellValueType[] cellTypes;
+
+	/** 单元格原始数值，仅在读取原始值时存在 */
+	private double[] numericValues;
+
 	public Row(int rowNum, String[] cellValues) {
 		this(rowNum, cellValues, null);
 	}
 
+	public Row(int rowNum, String[] cellValues, CellValueType[] cellTypes, double[] numericValues) {
+		this(rowNum, cellValues, null);
+		this.cellTypes = cellTypes;
+		this.numericValues = numericValues;
+	}
+
 	public Row(int rowNum, String[] cellValues, Set<Comment> comments) {
 		this.rowNum = rowNum;
 		this.cellValues = cellValues;
@@ -51,4 +65,35 @@ public class Row implements Serializable {
 	public boolean hasComments() {
 		return CollectionUtils.isNotEmpty(comments);
 	}
+
+	public boolean hasRawValues() {
+		return cellTypes != null;
+	}
+
+	/**
+	 * 获取单元格原始值类型
+	 */
+	public CellValueType getCellType(int colNum) {
+		if (cellTypes == null || colNum >= cellTypes.length || cellTypes[colNum] == null) {
+			return CellValueType.BLANK;
+		}
+		return cellTypes[colNum];
+	}
+
+	/**
+	 * 获取单元格原始值，数值为 {@link Double}，日期为 {@link Date}，布尔值为 {@link Boolean}，其余为字符串
+	 */
+	public Object getRawValue(int colNum) {
+		String cellValue = cellValues != null && colNum < cellValues.length ? cellValues[colNum] : null;
+		switch (getCellType(colNum)) {
+			case NUMERIC:
+				return numericValues[colNum];
+			case DATE:
+				return DateUtil.getJavaDate(numericValues[colNum]);
+			case BOOLEAN:
+				return numericValues[colNum] != 0;
+			default:
+				return cellValue;
+		}
+	}
 }
@@ -0,0 +1,516 @@
+package com.jeeapp.excel.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 为带有 @ExcelProperty 字段的类生成 {@code RowSetMapper} 和 {@link com.jeeapp.excel.builder.RowWriter}，
+ * 生成的代码直接调用 setter 和 getter，启动时不需要反射扫描。
+ * <p>
+ * 没有通过 META-INF/services 注册，需要时在编译参数中指定，例如 maven-compiler-plugin 的
+ * {@code annotationProcessors} 中加入本类（同时需要列出 lombok 等其他处理器）。
+ * 字段类型不支持、嵌套对象或没有默认构造方法的类不生成，并给出警告；缺少 setter 或 getter 时报告编译错误。
+ * @author Justice
+ */
+@SupportedAnnotationTypes(ExcelPropertyProcessor.EXCEL_PROPERTY)
+public class ExcelPropertyProcessor extends AbstractProcessor {
+
+	static final String EXCEL_PROPERTY = "com.jeeapp.excel.annotation.ExcelProperty";
+
+	private static final String DEFAULT_FORMAT = "General";
+
+	private static final Map<String, String> BOXED_TYPES = new HashMap<>();
+
+	private static final Set<String> NUMBER_TYPES = new HashSet<>();
+
+	static {
+		BOXED_TYPES.put("int", "java.lang.Integer");
+		BOXED_TYPES.put("long", "java.lang.Long");
+		BOXED_TYPES.put("double", "java.lang.Double");
+		BOXED_TYPES.put("float", "java.lang.Float");
+		BOXED_TYPES.put("short", "java.lang.Short");
+		BOXED_TYPES.put("byte", "java.lang.Byte");
+		BOXED_TYPES.put("boolean", "java.lang.Boolean");
+		NUMBER_TYPES.add("java.lang.Integer");
+		NUMBER_TYPES.add("java.lang.Long");
+		NUMBER_TYPES.add("java.lang.Double");
+		NUMBER_TYPES.add("java.lang.Float");
+		NUMBER_TYPES.add("java.lang.Short");
+		NUMBER_TYPES.add("java.lang.Byte");
+		NUMBER_TYPES.add("java.math.BigDecimal");
+		NUMBER_TYPES.add("java.math.BigInteger");
+	}
+
+	private final Set<String> processed = new HashSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		TypeElement annotation = processingEnv.getElementUtils().getTypeElement(EXCEL_PROPERTY);
+		if (annotation == null) {
+			return false;
+		}
+		Set<TypeElement> types = new LinkedHashSet<>();
+		for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+			if (element.getKind() == ElementKind.FIELD) {
+				types.add((TypeElement) element.getEnclosingElement());
+			}
+		}
+		for (TypeElement type : types) {
+			if (processed.add(type.getQualifiedName().toString())) {
+				generate(type);
+			}
+		}
+		return false;
+	}
+
+	private void generate(TypeElement type) {
+		if (type.getModifiers().contains(Modifier.ABSTRACT) || type.getModifiers().contains(Modifier.PRIVATE)
+			|| type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+			warn(type, "Mapper is not generated for abstract, private or inner class " + type.getQualifiedName());
+			return;
+		}
+		List<Property> properties = new ArrayList<>();
+		for (TypeElement current = type; current != null; current = superclass(current)) {
+			for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+				AnnotationMirror mirror = getExcelProperty(field);
+				if (mirror == null || field.getModifiers().contains(Modifier.STATIC)) {
+					continue;
+				}
+				Property property = new Property(field, mirror);
+				if (property.kind == null) {
+					warn(field, "Mapper is not generated for " + type.getQualifiedName()
+						+ ", unsupported property type " + field.asType());
+					return;
+				}
+				properties.add(property);
+			}
+		}
+		if (!hasDefaultConstructor(type) || !resolveAccessors(type, properties)) {
+			return;
+		}
+		properties.sort(Comparator.comparingInt(property -> property.column));
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String simpleName = flatName(type);
+		try {
+			writeMapper(type, packageName, simpleName + "RowSetMapper", properties);
+			writeRowWriter(type, packageName, simpleName + "RowWriter", properties);
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+				"Unable to generate mapper for " + type.getQualifiedName() + ": " + e.getMessage(), type);
+		}
+	}
+
+	private boolean hasDefaultConstructor(TypeElement type) {
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+				return true;
+			}
+		}
+		// immutable types are mapped by ConstructorRowSetMapper instead
+		warn(type, "Mapper is not generated for " + type.getQualifiedName() + ", no default constructor found");
+		return false;
+	}
+
+	/**
+	 * 按 JavaBeans 约定查找属性的 setter 和 getter，包括继承的方法，找不到时报告编译错误而不是生成无法编译的代码
+	 */
+	private boolean resolveAccessors(TypeElement type, List<Property> properties) {
+		List<ExecutableElement> methods = new ArrayList<>();
+		for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+			if (method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)) {
+				methods.add(method);
+			}
+		}
+		boolean resolved = true;
+		for (Property property : properties) {
+			property.setter = findSetter(methods, property);
+			if (property.setter == null) {
+				error(property.field, "Mapper is not generated for " + type.getQualifiedName()
+					+ ", no setter found for property " + property.name);
+				resolved = false;
+			}
+			if (!property.isTransient) {
+				property.getter = findGetter(methods, property);
+				if (property.getter == null) {
+					error(property.field, "Mapper is not generated for " + type.getQualifiedName()
+						+ ", no getter found for property " + property.name);
+					resolved = false;
+				}
+			}
+		}
+		return resolved;
+	}
+
+	private String findSetter(List<ExecutableElement> methods, Property property) {
+		for (String name : property.accessorNames("set")) {
+			for (ExecutableElement method : methods) {
+				if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == 1
+					&& processingEnv.getTypeUtils().isAssignable(property.field.asType(),
+					method.getParameters().get(0).asType())) {
+					return name;
+				}
+			}
+		}
+		return null;
+	}
+
+	private String findGetter(List<ExecutableElement> methods, Property property) {
+		List<String> names = new ArrayList<>();
+		if (property.kind == Kind.BOOLEAN) {
+			names.addAll(property.accessorNames("is"));
+		}
+		names.addAll(property.accessorNames("get"));
+		for (String name : names) {
+			for (ExecutableElement method : methods) {
+				if (method.getSimpleName().contentEquals(name) && method.getParameters().isEmpty()
+					&& processingEnv.getTypeUtils().isAssignable(method.getReturnType(), property.field.asType())) {
+					return name;
+				}
+			}
+		}
+		return null;
+	}
+
+	private void writeMapper(TypeElement type, String packageName, String className, List<Property> properties)
+		throws IOException {
+		String typeName = type.getQualifiedName().toString();
+		try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+			.createSourceFile(qualify(packageName, className), type).openWriter())) {
+			header(out, packageName);
+			out.println("public class " + className
+				+ " extends com.jeeapp.excel.rowset.AbstractGeneratedRowSetMapper<" + typeName + "> {");
+			out.println();
+			out.println("\tprivate static final java.util.Map<String, Integer> FIELD_COLUMNS;");
+			for (Property property : properties) {
+				if (property.parserType() != null) {
+					out.println();
+					out.println("\tprivate static final " + property.parserType() + " " + property.parserName()
+						+ " = new " + property.parserType() + "(" + property.pattern() + ");");
+				}
+			}
+			out.println();
+			out.println("\tstatic {");
+			out.println("\t\tjava.util.Map<String, Integer> fieldColumns = new java.util.HashMap<>();");
+			for (Property property : properties) {
+				out.println("\t\tfieldColumns.put(\"" + property.name + "\", " + property.column + ");");
+			}
+			out.println("\t\tFIELD_COLUMNS = java.util.Collections.unmodifiableMap(fieldColumns);");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tprotected java.util.Map<String, Integer> getFieldColumns() {");
+			out.println("\t\treturn FIELD_COLUMNS;");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic " + typeName + " mapRowSet(com.jeeapp.excel.rowset.RowSet rowSet)"
+				+ " throws com.jeeapp.excel.rowset.MappingException {");
+			out.println("\t\tcom.jeeapp.excel.model.Row row = rowSet.getRow();");
+			out.println("\t\tString[] values = row.getCellValues();");
+			out.println("\t\t" + typeName + " target = new " + typeName + "();");
+			out.println("\t\tcom.jeeapp.excel.rowset.MappingException ex = null;");
+			for (Property property : properties) {
+				int column = property.column;
+				out.println("\t\tif (values.length > " + column + " && values[" + column + "] != null) {");
+				if (property.kind == Kind.STRING) {
+					out.println("\t\t\ttarget." + property.setter + "(values[" + column + "]);");
+				} else {
+					out.println("\t\t\ttry {");
+					out.println("\t\t\t\ttarget." + property.setter + "(" + property.conversion() + ");");
+					out.println("\t\t\t} catch (Exception e) {");
+					out.println("\t\t\t\tex = typeMismatch(ex, row, " + column + ", \"" + property.name + "\", "
+						+ property.declaredType + ".class, e);");
+					out.println("\t\t\t}");
+				}
+				out.println("\t\t}");
+			}
+			out.println("\t\tif (ex != null) {");
+			out.println("\t\t\tthrow ex;");
+			out.println("\t\t}");
+			out.println("\t\tvalidate(row, target);");
+			out.println("\t\treturn target;");
+			out.println("\t}");
+			out.println("}");
+		}
+	}
+
+	private void writeRowWriter(TypeElement type, String packageName, String className, List<Property> properties)
+		throws IOException {
+		String typeName = type.getQualifiedName().toString();
+		try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+			.createSourceFile(qualify(packageName, className), type).openWriter())) {
+			header(out, packageName);
+			out.println("public class " + className + " implements com.jeeapp.excel.builder.RowWriter<" + typeName + "> {");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic String[] getNames() {");
+			out.println("\t\treturn new String[] {");
+			for (Property property : properties) {
+				if (!property.isTransient) {
+					out.println("\t\t\t" + processingEnv.getElementUtils().getConstantExpression(property.title) + ",");
+				}
+			}
+			out.println("\t\t};");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic String[] getFormats() {");
+			out.println("\t\treturn new String[] {");
+			for (Property property : properties) {
+				if (!property.isTransient) {
+					out.println("\t\t\t" + processingEnv.getElementUtils().getConstantExpression(property.format) + ",");
+				}
+			}
+			out.println("\t\t};");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic int[] getWidths() {");
+			out.println("\t\treturn new int[] {");
+			for (Property property : properties) {
+				if (!property.isTransient) {
+					out.println("\t\t\t" + property.width + ",");
+				}
+			}
+			out.println("\t\t};");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic boolean[] getHidden() {");
+			out.println("\t\treturn new boolean[] {");
+			for (Property property : properties) {
+				if (!property.isTransient) {
+					out.println("\t\t\t" + property.hidden + ",");
+				}
+			}
+			out.println("\t\t};");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic Object[] toCells(" + typeName + " bean) {");
+			out.println("\t\treturn new Object[] {");
+			for (Property property : properties) {
+				if (!property.isTransient) {
+					out.println("\t\t\tbean." + property.getter + "(),");
+				}
+			}
+			out.println("\t\t};");
+			out.println("\t}");
+			out.println("}");
+		}
+	}
+
+	private void header(PrintWriter out, String packageName) {
+		if (!packageName.isEmpty()) {
+			out.println("package " + packageName + ";");
+			out.println();
+		}
+		out.println("/**");
+		out.println(" * Generated by " + getClass().getName() + ", do not edit");
+		out.println(" */");
+	}
+
+	private TypeElement superclass(TypeElement type) {
+		TypeMirror superclass = type.getSuperclass();
+		if (superclass.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+		return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+	}
+
+	private static AnnotationMirror getExcelProperty(Element element) {
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(EXCEL_PROPERTY)) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
+	private Object getValue(AnnotationMirror mirror, String name) {
+		Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+			processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(name)) {
+				return entry.getValue().getValue();
+			}
+		}
+		return null;
+	}
+
+	private static String flatName(TypeElement type) {
+		String name = type.getSimpleName().toString();
+		Element enclosing = type.getEnclosingElement();
+		while (enclosing instanceof TypeElement) {
+			name = enclosing.getSimpleName() + "_" + name;
+			enclosing = enclosing.getEnclosingElement();
+		}
+		return name;
+	}
+
+	private static String qualify(String packageName, String className) {
+		return packageName.isEmpty() ? className : packageName + "." + className;
+	}
+
+	private static String capitalize(String name) {
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private void warn(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+	}
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	private enum Kind {
+		STRING, NUMBER, BOOLEAN, DATE
+	}
+
+	private final class Property {
+
+		private final VariableElement field;
+
+		private final String name;
+
+		private final String title;
+
+		private final int column;
+
+		private final String format;
+
+		private final int width;
+
+		private final boolean hidden;
+
+		private final String type;
+
+		private final String declaredType;
+
+		private final boolean primitive;
+
+		private final boolean isTransient;
+
+		private final Kind kind;
+
+		private String setter;
+
+		private String getter;
+
+		Property(VariableElement field, AnnotationMirror mirror) {
+			this.field = field;
+			this.name = field.getSimpleName().toString();
+			this.title = (String) getValue(mirror, "name");
+			this.column = (Integer) getValue(mirror, "column");
+			this.format = (String) getValue(mirror, "format");
+			this.width = (Integer) getValue(mirror, "width");
+			this.hidden = (Boolean) getValue(mirror, "hidden");
+			TypeMirror fieldType = field.asType();
+			this.primitive = fieldType.getKind().isPrimitive();
+			this.declaredType = processingEnv.getTypeUtils().erasure(fieldType).toString();
+			this.type = primitive ? BOXED_TYPES.get(declaredType) : declaredType;
+			this.isTransient = field.getModifiers().contains(Modifier.TRANSIENT);
+			if (String.class.getName().equals(type)) {
+				this.kind = Kind.STRING;
+			} else if (NUMBER_TYPES.contains(type)) {
+				this.kind = Kind.NUMBER;
+			} else if (Boolean.class.getName().equals(type)) {
+				this.kind = Kind.BOOLEAN;
+			} else if ("java.util.Date".equals(type)) {
+				this.kind = Kind.DATE;
+			} else {
+				this.kind = null;
+			}
+		}
+
+		/**
+		 * 访问方法的候选名称，boolean 类型的 isXxx 字段也按 lombok 的约定去掉 is 前缀
+		 */
+		List<String> accessorNames(String prefix) {
+			List<String> names = new ArrayList<>();
+			names.add(prefix + capitalize(name));
+			if (primitive && kind == Kind.BOOLEAN && name.length() > 2 && name.startsWith("is")
+				&& Character.isUpperCase(name.charAt(2))) {
+				names.add(prefix + name.substring(2));
+			}
+			return names;
+		}
+
+		/**
+		 * 默认的 General 格式不能用于解析，和 {@link com.jeeapp.excel.rowset.CompiledRowSetMapper} 一样按属性类型转换
+		 */
+		String parserType() {
+			if (DEFAULT_FORMAT.equals(format)) {
+				return null;
+			}
+			if (kind == Kind.DATE) {
+				return "org.springframework.format.datetime.DateFormatter";
+			}
+			if (kind == Kind.NUMBER) {
+				return "org.springframework.format.number.NumberStyleFormatter";
+			}
+			return null;
+		}
+
+		String parserName() {
+			return name.replaceAll("([A-Z])", "_$1").toUpperCase() + "_PARSER";
+		}
+
+		String pattern() {
+			if (format.isEmpty() || DEFAULT_FORMAT.equals(format)) {
+				return "";
+			}
+			return processingEnv.getElementUtils().getConstantExpression(format);
+		}
+
+		String conversion() {
+			String conversion;
+			switch (kind) {
+				case NUMBER:
+					conversion = "toNumber(row, " + column + ", " + type + ".class, "
+						+ (parserType() != null ? parserName() : "null") + ")";
+					break;
+				case BOOLEAN:
+					conversion = "toBoolean(row, " + column + ")";
+					break;
+				default:
+					conversion = "toDate(row, " + column + ", " + (parserType() != null ? parserName() : "null") + ")";
+					break;
+			}
+			return primitive ? "required(" + conversion + ")" : conversion;
+		}
+	}
+}
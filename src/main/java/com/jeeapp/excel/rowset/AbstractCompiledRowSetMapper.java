@@ -0,0 +1,147 @@
+package com.jeeapp.excel.rowset;
+
+import java.lang.reflect.Field;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.MessageSourceAccessor;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.format.AnnotationFormatterFactory;
+import org.springframework.format.Parser;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindException;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.Validator;
+import com.jeeapp.excel.annotation.ExcelProperty;
+import com.jeeapp.excel.model.Row;
+import com.jeeapp.excel.util.CellUtils;
+
+/**
+ * 创建时解析好各列转换的映射器的公共部分，子类决定如何用转换后的值创建对象；
+ * 映射时不修改任何状态，配置完成后同一个实例可在多个导入线程间共享；setter 只能在共享前调用
+ * @author Justice
+ */
+abstract class AbstractCompiledRowSetMapper<T> implements RowSetMapper<T> {
+
+	protected final Class<? extends T> type;
+
+	protected final Map<String, Integer> fieldColumns;
+
+	private final ConversionService conversionService;
+
+	private final AnnotationFormatterFactory<ExcelProperty> formatterFactory;
+
+	private volatile Validator validator;
+
+	private volatile MessageSourceAccessor messages = BeanWrapperRowSetMapper.DefaultMessageSource.getAccessor();
+
+	AbstractCompiledRowSetMapper(Class<? extends T> type, Map<String, Integer> fieldColumns,
+		ConversionService conversionService, AnnotationFormatterFactory<ExcelProperty> formatterFactory) {
+		Assert.notNull(type, "type cannot be null");
+		Assert.notNull(fieldColumns, "fieldColumns cannot be null");
+		Assert.notNull(conversionService, "conversionService cannot be null");
+		this.type = type;
+		this.fieldColumns = Collections.unmodifiableMap(new HashMap<>(fieldColumns));
+		this.conversionService = conversionService;
+		this.formatterFactory = formatterFactory;
+	}
+
+	static Map<String, Integer> getAnnotatedFieldColumns(Class<?> type) {
+		return AnnotationBasedRowSetMapper.getAnnotatedFieldColumns(type);
+	}
+
+	ColumnConverter compileColumn(String field, int column, TypeDescriptor targetType) {
+		return new ColumnConverter(field, column, targetType, getParser(field, targetType.getType()));
+	}
+
+	/**
+	 * 默认的 General 格式不能用于解析，和 {@link org.springframework.beans.BeanWrapper} 一样按属性类型转换
+	 */
+	private Parser<?> getParser(String name, Class<?> fieldType) {
+		if (formatterFactory == null) {
+			return null;
+		}
+		Field field = ReflectionUtils.findField(type, name);
+		ExcelProperty annotation = field != null ? field.getAnnotation(ExcelProperty.class) : null;
+		if (annotation == null || CellUtils.DEFAULT_FORMAT.equals(annotation.format())
+			|| !formatterFactory.getFieldTypes().contains(fieldType)) {
+			return null;
+		}
+		return formatterFactory.getParser(annotation, fieldType);
+	}
+
+	/**
+	 * 转换各列的值放入对应位置，空单元格的位置保持不变
+	 * @return 有类型不匹配时返回包含全部错误的异常，否则返回 null
+	 */
+	MappingException convertColumns(Row row, ColumnConverter[] converters, Object[] results) {
+		String[] values = row.getCellValues();
+		boolean rawValues = row.hasRawValues();
+		MappingException ex = null;
+		for (int i = 0; i < converters.length; i++) {
+			ColumnConverter converter = converters[i];
+			if (converter == null) {
+				continue;
+			}
+			Object value = converter.getValue(row, values, rawValues);
+			if (value == null) {
+				continue;
+			}
+			try {
+				results[i] = converter.convert(value, conversionService);
+			} catch (ConversionException | ParseException e) {
+				if (ex == null) {
+					ex = new MappingException(row, e);
+				}
+				ex.addError(converter.column, messages.getMessage(converter.typeMismatch));
+			}
+		}
+		return ex;
+	}
+
+	void validate(Row row, T target) throws MappingException {
+		if (validator == null) {
+			return;
+		}
+		BindingResult bindingResult = new BeanPropertyBindingResult(target, "target");
+		validator.validate(target, bindingResult);
+		if (bindingResult.hasErrors()) {
+			MappingException ex = new MappingException(row, new BindException(bindingResult));
+			for (FieldError fieldError : bindingResult.getFieldErrors()) {
+				Integer column = BeanWrapperRowSetMapper.getColumn(fieldColumns, fieldError.getField());
+				if (column != null) {
+					ex.addError(column, messages.getMessage(fieldError));
+				}
+			}
+			throw ex;
+		}
+	}
+
+	@Override
+	public MappingResult<T> getMappingResult(RowSet rowSet) {
+		MappingResult<T> mappingResult = RowSetMapper.super.getMappingResult(rowSet);
+		mappingResult.setFieldColumns(fieldColumns);
+		return mappingResult;
+	}
+
+	public Map<String, Integer> getFieldColumns() {
+		return fieldColumns;
+	}
+
+	public void setValidator(Validator validator) {
+		this.validator = validator;
+	}
+
+	public void setMessageSource(MessageSource messageSource) {
+		Assert.notNull(messageSource, "messageSource cannot be null");
+		this.messages = new MessageSourceAccessor(messageSource);
+	}
+}
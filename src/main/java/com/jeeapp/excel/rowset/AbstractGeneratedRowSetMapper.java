@@ -0,0 +1,167 @@
+package com.jeeapp.excel.rowset;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Map;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.context.support.MessageSourceAccessor;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.format.Parser;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.util.Assert;
+import org.springframework.util.NumberUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindException;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.Validator;
+import com.jeeapp.excel.model.Row;
+
+/**
+ * 由 {@link com.jeeapp.excel.processor.ExcelPropertyProcessor} 生成的映射器的父类，提供生成代码中用到的类型转换，
+ * 转换规则和校验方式和 {@link CompiledRowSetMapper} 一致；setter 只能在多个导入线程共享实例前调用
+ * @author Justice
+ */
+public abstract class AbstractGeneratedRowSetMapper<T> implements RowSetMapper<T> {
+
+	private static final ConversionService CONVERSION_SERVICE = new DefaultFormattingConversionService();
+
+	private volatile Validator validator;
+
+	private volatile MessageSourceAccessor messages = BeanWrapperRowSetMapper.DefaultMessageSource.getAccessor();
+
+	/**
+	 * 属性名到列序的映射，用于 {@link MappingResult#addError(String, String)}
+	 */
+	protected abstract Map<String, Integer> getFieldColumns();
+
+	@Override
+	public MappingResult<T> getMappingResult(RowSet rowSet) {
+		MappingResult<T> mappingResult = RowSetMapper.super.getMappingResult(rowSet);
+		mappingResult.setFieldColumns(getFieldColumns());
+		return mappingResult;
+	}
+
+	public void setValidator(Validator validator) {
+		this.validator = validator;
+	}
+
+	public void setMessageSource(MessageSource messageSource) {
+		Assert.notNull(messageSource, "messageSource cannot be null");
+		this.messages = new MessageSourceAccessor(messageSource);
+	}
+
+	/**
+	 * 记录类型不匹配的错误，第一个错误时创建异常
+	 */
+	protected MappingException typeMismatch(MappingException ex, Row row, int column, String field, Class<?> type,
+		Exception cause) {
+		if (ex == null) {
+			ex = new MappingException(row, cause);
+		}
+		String[] codes = {"typeMismatch." + field, "typeMismatch." + type.getName(), "typeMismatch"};
+		ex.addError(column, messages.getMessage(new DefaultMessageSourceResolvable(codes)));
+		return ex;
+	}
+
+	/**
+	 * 所有列转换成功后校验对象，错误按属性所在的列记录
+	 */
+	protected void validate(Row row, T target) throws MappingException {
+		Validator validator = this.validator;
+		if (validator == null) {
+			return;
+		}
+		BindingResult bindingResult = new BeanPropertyBindingResult(target, "target");
+		validator.validate(target, bindingResult);
+		if (bindingResult.hasErrors()) {
+			MappingException ex = new MappingException(row, new BindException(bindingResult));
+			for (FieldError fieldError : bindingResult.getFieldErrors()) {
+				Integer column = BeanWrapperRowSetMapper.getColumn(getFieldColumns(), fieldError.getField());
+				if (column != null) {
+					ex.addError(column, messages.getMessage(fieldError));
+				}
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * 基本类型的属性不能设置为 null
+	 */
+	protected static <V> V required(V value) {
+		if (value == null) {
+			throw new IllegalArgumentException("A null value cannot be assigned to a primitive type");
+		}
+		return value;
+	}
+
+	protected static <N extends Number> N toNumber(Row row, int column, Class<N> type, Parser<? extends Number> parser)
+		throws ParseException {
+		Object value = getValue(row, column);
+		if (value instanceof String) {
+			String text = (String) value;
+			if (!StringUtils.hasText(text)) {
+				return null;
+			}
+			if (parser == null) {
+				return NumberUtils.parseNumber(text, type);
+			}
+			value = parser.parse(text, LocaleContextHolder.getLocale());
+		}
+		if (value instanceof Number) {
+			return NumberUtils.convertNumberToTargetClass((Number) value, type);
+		}
+		throw new IllegalArgumentException("Cannot convert [" + value + "] to " + type.getName());
+	}
+
+	protected static Boolean toBoolean(Row row, int column) {
+		Object value = getValue(row, column);
+		if (value instanceof Boolean) {
+			return (Boolean) value;
+		}
+		String text = value.toString().trim().toLowerCase();
+		switch (text) {
+			case "":
+				return null;
+			case "true":
+			case "on":
+			case "yes":
+			case "1":
+				return Boolean.TRUE;
+			case "false":
+			case "off":
+			case "no":
+			case "0":
+				return Boolean.FALSE;
+			default:
+				throw new IllegalArgumentException("Invalid boolean value '" + text + "'");
+		}
+	}
+
+	/**
+	 * @param parser 列格式为 General 时为 null，和空白文本一样交给默认的类型转换
+	 */
+	protected static Date toDate(Row row, int column, Parser<Date> parser) throws ParseException {
+		Object value = getValue(row, column);
+		if (value instanceof Date) {
+			return (Date) value;
+		}
+		if (value instanceof String) {
+			String text = (String) value;
+			if (parser == null || !StringUtils.hasText(text)) {
+				return CONVERSION_SERVICE.convert(text, Date.class);
+			}
+			return parser.parse(text, LocaleContextHolder.getLocale());
+		}
+		throw new IllegalArgumentException("Cannot convert [" + value + "] to " + Date.class.getName());
+	}
+
+	private static Object getValue(Row row, int column) {
+		return row.hasRawValues() ? row.getRawValue(column) : row.getCellValues()[column];
+	}
+}
@@ -0,0 +1,411 @@
+package com.jeeapp.excel.rowset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.poi.hssf.eventusermodel.EventWorkbookBuilder.SheetRecordCollectingListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.MissingRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FilePassRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.hssf.usermodel.HSSFDataFormatter;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import com.jeeapp.excel.model.CellValueType;
+import com.jeeapp.excel.util.CellFormats;
+import com.jeeapp.excel.util.CellFormats.CellFormat;
+
+/**
+ * xls 读取器的公共部分，负责打开工作簿流并把 HSSF 记录组装成行，组装好的行如何交给调用方由子类决定
+ * @author Justice
+ */
+abstract class AbstractXlsRowSetReader implements RowSetReader {
+
+	protected final AtomicInteger lastRowNum = new AtomicInteger();
+
+	protected final RowSetReaderOptions options;
+
+	private final File file;
+
+	private InputStream inputStream;
+
+	private POIFSFileSystem fileSystem;
+
+	private FormatTrackingHSSFListener formatListener;
+
+	protected SheetSkippingInputStream workbookStream;
+
+	private final CountDownLatch sheetNamesLatch = new CountDownLatch(1);
+
+	private volatile List<String> sheetNames;
+
+	protected AbstractXlsRowSetReader(File file, InputStream inputStream, RowSetReaderOptions options) {
+		this.file = file;
+		this.inputStream = inputStream;
+		this.options = options;
+	}
+
+	/**
+	 * 打开工作簿流，返回接收全部记录的监听器
+	 */
+	protected HSSFListener openWorkbook() throws IOException {
+		// a file backed file system reads the blocks on demand instead of buffering the whole stream
+		fileSystem = file != null ? new POIFSFileSystem(file, true) : new POIFSFileSystem(inputStream);
+		final MissingRecordAwareHSSFListener listener = new MissingRecordAwareHSSFListener(new HSSFListenerImpl(this));
+		formatListener = new FormatTrackingHSSFListener(listener);
+		InputStream documentStream = fileSystem.createDocumentInputStream(
+			HSSFWorkbook.getWorkbookDirEntryName(fileSystem.getRoot()));
+		ReadProgress progress = options.getProgress();
+		if (progress != null) {
+			progress.start();
+			progress.addTotalBytes(documentStream.available());
+			documentStream = new ProgressInputStream(documentStream, progress);
+		}
+		workbookStream = new SheetSkippingInputStream(documentStream);
+		return new SheetRecordCollectingListener(formatListener);
+	}
+
+	/**
+	 * 接收组装好的行，行为空时表示工作簿结束
+	 */
+	protected abstract void put(RowSet rowSet);
+
+	/**
+	 * 工作簿全局记录解析完成时记录全部工作表名称，解析提前结束时以 null 调用以唤醒等待的线程
+	 */
+	protected void sheetNamesRead(List<String> sheetNames) {
+		if (this.sheetNames == null && sheetNames != null) {
+			this.sheetNames = Collections.unmodifiableList(sheetNames);
+		}
+		sheetNamesLatch.countDown();
+	}
+
+	/**
+	 * 已经解析到的工作表名称，工作簿全局记录尚未解析完成时返回 null
+	 */
+	protected List<String> sheetNames() {
+		return sheetNames;
+	}
+
+	protected List<String> awaitSheetNames() throws InterruptedException {
+		sheetNamesLatch.await();
+		return sheetNames;
+	}
+
+	protected void closeWorkbook() throws IOException {
+		if (inputStream != null) {
+			inputStream.close();
+			inputStream = null;
+		}
+		if (fileSystem != null) {
+			fileSystem.close();
+			fileSystem = null;
+		}
+		if (options.getProgress() != null) {
+			options.getProgress().finish();
+		}
+	}
+
+	/**
+	 * @author yinyf
+	 */
+	static final class HSSFListenerImpl implements HSSFListener {
+
+		private final AbstractXlsRowSetReader rowSetReader;
+
+		private final RowSetBuilder rowSetBuilder;
+
+		private final CellFormats cellFormats;
+
+		private RowBuffer rowBuffer;
+
+		private List<BoundSheetRecord> boundSheetRecords;
+
+		private List<BoundSheetRecord> visitOrder;
+
+		private int visited;
+
+		private int bofDepth;
+
+		private boolean encrypted;
+
+		private SSTRecord sstRecord;
+
+		private boolean worksheet;
+
+		private int firstRowNum;
+
+		private int sheetRows;
+
+		/**
+		 * 没有行记录、由 {@link org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener} 补上的行，不计入最大行数
+		 */
+		private final BitSet missingRows = new BitSet();
+
+		private boolean outputNextStringRecord;
+
+		private int nextStringColumn;
+
+		HSSFListenerImpl(AbstractXlsRowSetReader rowSetReader) {
+			this.rowSetReader = rowSetReader;
+			this.rowSetBuilder = RowSetBuilder.builder();
+			this.cellFormats = new CellFormats(new HSSFDataFormatter());
+			this.rowBuffer = newRowBuffer();
+		}
+
+		private RowBuffer newRowBuffer() {
+			// rows may be handed over to another thread or queued, so they can never be reused
+			return new RowBuffer(rowSetReader.options, false);
+		}
+
+		@Override
+		public void processRecord(Record record) {
+			if (!worksheet && (record instanceof CellValueRecordInterface || record instanceof LastCellOfRowDummyRecord
+				|| record.getSid() == StringRecord.sid)) {
+				// cells of unselected sheets are dropped without formatting
+				return;
+			}
+			if (firstRowNum > 0 && rowNum(record) < firstRowNum) {
+				// rows before the first requested row are dropped without formatting
+				return;
+			}
+			if (record instanceof CellValueRecordInterface && !rowBuffer.accept(((CellValueRecordInterface) record).getColumn())) {
+				// skip cells outside the column projection before formatting or looking up strings
+				return;
+			}
+			switch (record.getSid()) {
+				case BoundSheetRecord.sid:
+					if (boundSheetRecords == null) {
+						boundSheetRecords = new ArrayList<>();
+					}
+					boundSheetRecords.add((BoundSheetRecord) record);
+					break;
+				case FilePassRecord.sid:
+					encrypted = true;
+					break;
+				case BOFRecord.sid:
+					BOFRecord bofRecord = (BOFRecord) record;
+					bofDepth++;
+					if (bofDepth == 1 && visitOrder != null && visited < visitOrder.size()) {
+						// a sheet substream, embedded charts are nested deeper
+						BoundSheetRecord boundSheetRecord = visitOrder.get(visited++);
+						int sheetIndex = boundSheetRecords.indexOf(boundSheetRecord);
+						String sheetName = boundSheetRecord.getSheetname();
+						worksheet = bofRecord.getType() == BOFRecord.TYPE_WORKSHEET
+							&& rowSetReader.options.acceptSheet(sheetIndex, sheetName);
+						if (worksheet) {
+							rowSetBuilder.withSheet(sheetIndex, sheetName);
+							rowBuffer = newRowBuffer();
+							firstRowNum = rowSetReader.options.firstRowNum(sheetIndex);
+							sheetRows = 0;
+							missingRows.clear();
+						}
+					}
+					break;
+				case DimensionsRecord.sid:
+					if (worksheet) {
+						// the last column of a DimensionsRecord is one past the used area
+						rowBuffer.presize(((DimensionsRecord) record).getLastCol());
+					}
+					break;
+				case SSTRecord.sid:
+					sstRecord = (SSTRecord) record;
+					break;
+				case BlankRecord.sid:
+					BlankRecord blankRecord = (BlankRecord) record;
+					rowBuffer.cell(blankRecord.getColumn(), "", CellValueType.BLANK, 0);
+					break;
+				case BoolErrRecord.sid:
+					BoolErrRecord boolErrRecord = (BoolErrRecord) record;
+					if (!rowBuffer.isRawValues()) {
+						rowBuffer.cell(boolErrRecord.getColumn(), boolErrRecord.getBooleanValue() + "");
+					} else if (boolErrRecord.isBoolean()) {
+						boolean b = boolErrRecord.getBooleanValue();
+						rowBuffer.cell(boolErrRecord.getColumn(), b + "", CellValueType.BOOLEAN, b ? 1 : 0);
+					} else {
+						String error = FormulaError.forInt(boolErrRecord.getErrorValue()).getString();
+						rowBuffer.cell(boolErrRecord.getColumn(), error, CellValueType.ERROR, 0);
+					}
+					break;
+				case FormulaRecord.sid:
+					FormulaRecord formulaRecord = (FormulaRecord) record;
+					if (formulaRecord.hasCachedResultString() && Double.isNaN(formulaRecord.getValue())) {
+						outputNextStringRecord = true;
+						nextStringColumn = formulaRecord.getColumn();
+					} else {
+						numberCell(formulaRecord, formulaRecord.getValue());
+					}
+					break;
+				case StringRecord.sid:
+					if (outputNextStringRecord && rowBuffer.accept(nextStringColumn)) {
+						StringRecord stringRecord = (StringRecord) record;
+						rowBuffer.cell(nextStringColumn, stringRecord.getString(), CellValueType.STRING, 0);
+						outputNextStringRecord = false;
+					}
+					break;
+				case LabelRecord.sid:
+					LabelRecord labelRecord = (LabelRecord) record;
+					rowBuffer.cell(labelRecord.getColumn(), labelRecord.getValue(), CellValueType.STRING, 0);
+					break;
+				case LabelSSTRecord.sid:
+					LabelSSTRecord labelSstRecord = (LabelSSTRecord) record;
+					String value = sstRecord == null ? "" : sstRecord.getString(labelSstRecord.getSSTIndex()).toString();
+					rowBuffer.cell(labelSstRecord.getColumn(), value, CellValueType.STRING, 0);
+					break;
+				case NumberRecord.sid:
+					NumberRecord numberRecord = (NumberRecord) record;
+					numberCell(numberRecord, numberRecord.getValue());
+					break;
+				case EOFRecord.sid:
+					bofDepth--;
+					if (bofDepth != 0) {
+						break;
+					}
+					if (visitOrder == null) {
+						visitSheets();
+					}
+					worksheet = false;
+					firstRowNum = 0;
+					if (visited == visitOrder.size()) {
+						// nothing after the last visited sheet is needed
+						rowSetReader.workbookStream.skipTo(Long.MAX_VALUE);
+						rowSetReader.put(rowSetBuilder.withNullRow().build());
+					}
+					break;
+				default:
+					break;
+			}
+			if (record instanceof MissingRowDummyRecord && worksheet) {
+				missingRows.set(((MissingRowDummyRecord) record).getRowNumber());
+			}
+			if (record instanceof LastCellOfRowDummyRecord) {
+				LastCellOfRowDummyRecord lastCellOfRowDummyRecord = (LastCellOfRowDummyRecord) record;
+				int rowNum = lastCellOfRowDummyRecord.getRow();
+				rowSetReader.lastRowNum.incrementAndGet();
+				if (rowSetReader.options.getProgress() != null) {
+					rowSetReader.options.getProgress().addRow();
+				}
+				rowBuffer.setRowNum(rowNum);
+				rowSetReader.put(rowBuffer.build(rowSetBuilder));
+				rowBuffer.startRow(rowNum + 1);
+				if (missingRows.get(rowNum)) {
+					missingRows.clear(rowNum);
+				} else if (++sheetRows >= rowSetReader.options.getMaxRows()) {
+					skipSheet();
+				}
+			}
+		}
+
+		/**
+		 * 工作表已经读够行数，未加密时直接跳到下一个工作表的 BOF 位置，否则只丢弃剩余的单元格
+		 */
+		private void skipSheet() {
+			worksheet = false;
+			if (encrypted) {
+				// decryption depends on reading every record in sequence
+				return;
+			}
+			bofDepth = 0;
+			if (visited < visitOrder.size()) {
+				rowSetReader.workbookStream.skipTo(visitOrder.get(visited).getPositionOfBof());
+			} else {
+				rowSetReader.workbookStream.skipTo(Long.MAX_VALUE);
+				rowSetReader.put(rowSetBuilder.withNullRow().build());
+			}
+		}
+
+		private int rowNum(Record record) {
+			if (record instanceof CellValueRecordInterface) {
+				return ((CellValueRecordInterface) record).getRow();
+			}
+			if (record instanceof LastCellOfRowDummyRecord) {
+				return ((LastCellOfRowDummyRecord) record).getRow();
+			}
+			return Integer.MAX_VALUE;
+		}
+
+		/**
+		 * 工作簿全局记录结束后确定需要解析的工作表，未加密时直接跳到所选工作表的 BOF 位置
+		 */
+		private void visitSheets() {
+			if (boundSheetRecords == null) {
+				boundSheetRecords = new ArrayList<>();
+			}
+			List<String> sheetNames = new ArrayList<>(boundSheetRecords.size());
+			for (BoundSheetRecord boundSheetRecord : boundSheetRecords) {
+				sheetNames.add(boundSheetRecord.getSheetname());
+			}
+			rowSetReader.sheetNamesRead(sheetNames);
+			List<BoundSheetRecord> ordered = Arrays.asList(BoundSheetRecord.orderByBofPosition(boundSheetRecords));
+			RowSetReaderOptions options = rowSetReader.options;
+			if (!options.hasSheetSelection() || encrypted) {
+				visitOrder = ordered;
+				return;
+			}
+			visitOrder = new ArrayList<>();
+			List<Long> ranges = new ArrayList<>();
+			for (int i = 0; i < ordered.size(); i++) {
+				BoundSheetRecord boundSheetRecord = ordered.get(i);
+				if (options.acceptSheet(boundSheetRecords.indexOf(boundSheetRecord), boundSheetRecord.getSheetname())) {
+					visitOrder.add(boundSheetRecord);
+					ranges.add((long) boundSheetRecord.getPositionOfBof());
+					ranges.add(i + 1 < ordered.size() ? ordered.get(i + 1).getPositionOfBof() : Long.MAX_VALUE);
+				}
+			}
+			rowSetReader.workbookStream.setRanges(ranges.stream().mapToLong(Long::longValue).toArray());
+		}
+
+		private void numberCell(CellValueRecordInterface record, double value) {
+			CellFormat format = cellFormat(record);
+			if (!rowBuffer.isRawValues()) {
+				if (format.getFormatString() == null) {
+					rowBuffer.cell(record.getColumn(), rowSetReader.formatListener.formatNumberDateCell(record));
+				} else {
+					rowBuffer.cell(record.getColumn(), cellFormats.format(value, format));
+				}
+				return;
+			}
+			CellValueType cellType = format.isDate() ? CellValueType.DATE : CellValueType.NUMERIC;
+			rowBuffer.cell(record.getColumn(), NumberToTextConverter.toText(value), cellType, value);
+		}
+
+		/**
+		 * 按扩展格式序号缓存数据格式，格式记录都在工作簿开头，读到单元格时已经完整
+		 */
+		private CellFormat cellFormat(CellValueRecordInterface record) {
+			int xfIndex = record.getXFIndex();
+			CellFormat format = cellFormats.get(xfIndex);
+			if (format == null) {
+				FormatTrackingHSSFListener formatListener = rowSetReader.formatListener;
+				format = cellFormats.put(xfIndex, formatListener.getFormatIndex(record), formatListener.getFormatString(record));
+			}
+			return format;
+		}
+	}
+}
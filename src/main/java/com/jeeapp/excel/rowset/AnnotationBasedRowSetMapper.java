@@ -1,17 +1,24 @@
 package com.jeeapp.excel.rowset;
 
+import java.beans.PropertyEditorSupport;
 import java.lang.reflect.Field;
+import java.text.ParseException;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.springframework.context.EmbeddedValueResolverAware;
 import org.springframework.context.support.EmbeddedValueResolutionSupport;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.format.AnnotationFormatterFactory;
 import org.springframework.format.Formatter;
 import org.springframework.format.Parser;
@@ -19,50 +26,204 @@ import org.springframework.format.Printer;
 import org.springframework.format.datetime.DateFormatter;
 import org.springframework.format.number.NumberStyleFormatter;
 import org.springframework.format.support.FormattingConversionService;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.NumberUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.util.StringValueResolver;
+import org.springframework.validation.DataBinder;
 import com.jeeapp.excel.annotation.ExcelProperty;
+import com.jeeapp.excel.util.CellUtils;
 
 /**
+ * 列序和带格式的字段在创建时按类缓存，列格式在设置 {@link FormattingConversionService} 时创建，
+ * 不会向转换服务注册转换器，只注册到每行的 {@link DataBinder} 上，配置完成后可在多个导入线程间共享同一个实例；
+ * 和 {@link BeanWrapperRowSetMapper} 一样，setter 只能在共享前调用
  * @author Justice
  */
 public class AnnotationBasedRowSetMapper<T> extends BeanWrapperRowSetMapper<T> {
 
-	private final Class<? extends T> type;
+	private static final Map<Class<?>, Map<String, Integer>> FIELD_COLUMNS_CACHE = new ConcurrentReferenceHashMap<>();
+
+	private static final Map<Class<?>, Map<String, TypeDescriptor>> FORMATTED_FIELDS_CACHE = new ConcurrentReferenceHashMap<>();
+
+	private final Map<String, TypeDescriptor> formattedFields;
+
+	/**
+	 * 按设置的 {@link FormattingConversionService} 创建的列格式，为空时不按列格式解析
+	 */
+	private volatile Map<String, FieldFormat> fieldFormats = Collections.emptyMap();
 
 	public AnnotationBasedRowSetMapper(Class<? extends T> type) {
-		super(type);
-		this.type = type;
+		super(type, getAnnotatedFieldColumns(type));
+		this.formattedFields = FORMATTED_FIELDS_CACHE.computeIfAbsent(type, AnnotationBasedRowSetMapper::getFormattedFields);
+	}
+
+	/**
+	 * 按 {@link ExcelProperty} 的列序，按类缓存
+	 */
+	static Map<String, Integer> getAnnotatedFieldColumns(Class<?> type) {
+		return FIELD_COLUMNS_CACHE.computeIfAbsent(type, AnnotationBasedRowSetMapper::resolveFieldColumns);
+	}
+
+	private static Map<String, Integer> resolveFieldColumns(Class<?> type) {
+		return Collections.unmodifiableMap(FieldUtils.getFieldsListWithAnnotation(type, ExcelProperty.class)
+			.stream()
+			.collect(Collectors.toMap(Field::getName, field -> field.getAnnotation(ExcelProperty.class).column())));
+	}
+
+	/**
+	 * 默认的 General 格式不能用于解析，这些字段按属性类型转换
+	 */
+	private static Map<String, TypeDescriptor> getFormattedFields(Class<?> type) {
+		Map<String, TypeDescriptor> formattedFields = new HashMap<>();
+		for (Field field : FieldUtils.getFieldsListWithAnnotation(type, ExcelProperty.class)) {
+			ExcelProperty annotation = field.getAnnotation(ExcelProperty.class);
+			if (!CellUtils.DEFAULT_FORMAT.equals(annotation.format())
+				&& ExcelPropertyAnnotationFormatterFactory.FIELD_TYPES.contains(ClassUtils.resolvePrimitiveIfNecessary(field.getType()))) {
+				formattedFields.put(field.getName(), new TypeDescriptor(field));
+			}
+		}
+		return Collections.unmodifiableMap(formattedFields);
 	}
 
+	/**
+	 * 设置 {@link FormattingConversionService} 时按列格式解析数字和日期，列格式中的占位符由它的
+	 * {@link StringValueResolver} 解析
+	 */
 	@Override
 	public void setConversionService(ConversionService conversionService) {
+		Map<String, FieldFormat> fieldFormats = Collections.emptyMap();
 		if (conversionService instanceof FormattingConversionService) {
-			((FormattingConversionService) conversionService)
-				.addFormatterForFieldAnnotation(new ExcelPropertyAnnotationFormatterFactory());
+			ExcelPropertyAnnotationFormatterFactory formatterFactory = createFormatterFactory(conversionService);
+			fieldFormats = new HashMap<>();
+			for (Entry<String, TypeDescriptor> formattedField : formattedFields.entrySet()) {
+				TypeDescriptor fieldType = formattedField.getValue();
+				Formatter<?> formatter = formatterFactory.getFormatter(fieldType.getAnnotation(ExcelProperty.class),
+					fieldType.getObjectType());
+				fieldFormats.put(formattedField.getKey(), new FieldFormat(formatter, fieldType, conversionService));
+			}
 		}
+		this.fieldFormats = fieldFormats;
 		super.setConversionService(conversionService);
 	}
 
+	/**
+	 * 创建列格式的工厂，转换服务是 {@link FormattingConversionService} 时沿用它的占位符解析器
+	 */
+	static ExcelPropertyAnnotationFormatterFactory createFormatterFactory(ConversionService conversionService) {
+		ExcelPropertyAnnotationFormatterFactory formatterFactory = new ExcelPropertyAnnotationFormatterFactory();
+		if (conversionService instanceof FormattingConversionService) {
+			EmbeddedValueResolverHolder holder = new EmbeddedValueResolverHolder();
+			((FormattingConversionService) conversionService).addFormatterForFieldAnnotation(holder);
+			if (holder.embeddedValueResolver != null) {
+				formatterFactory.setEmbeddedValueResolver(holder.embeddedValueResolver);
+			}
+		}
+		return formatterFactory;
+	}
+
+	/**
+	 * 列序在创建时已经确定，与行无关
+	 * @deprecated 使用 {@link #getFieldColumns()}
+	 */
+	@Deprecated
 	@Override
 	public Map<String, Integer> getFieldColumns(RowSet rowSet) {
-		Map<String, Integer> fieldColumns = super.getFieldColumns(rowSet);
-		if (fieldColumns == null) {
-			fieldColumns = FieldUtils.getFieldsListWithAnnotation(type, ExcelProperty.class)
-				.stream()
-				.collect(Collectors.toMap(Field::getName, this::getColumnIndex));
-			setFieldColumns(fieldColumns);
-		}
-		return fieldColumns;
+		return getFieldColumns();
+	}
+
+	/**
+	 * 按字段注册属性编辑器，先用列格式解析，再转换为字段类型，例如日期格式的 {@link Long} 和 {@link Calendar} 字段
+	 */
+	@Override
+	protected void initBinder(DataBinder binder) {
+		fieldFormats.forEach((field, fieldFormat) -> binder.registerCustomEditor(fieldFormat.fieldType.getType(), field,
+			new FieldFormatEditor(fieldFormat)));
+	}
+
+	private static final class FieldFormat {
+
+		private final Formatter<?> formatter;
+
+		private final TypeDescriptor fieldType;
+
+		private final ConversionService conversionService;
+
+		FieldFormat(Formatter<?> formatter, TypeDescriptor fieldType, ConversionService conversionService) {
+			this.formatter = formatter;
+			this.fieldType = fieldType;
+			this.conversionService = conversionService;
+		}
+	}
+
+	/**
+	 * {@link FormattingConversionService} 没有公开占位符解析器，注册时它会把解析器交给实现了
+	 * {@link EmbeddedValueResolverAware} 的工厂；字段类型为空，不会向转换服务添加任何转换器
+	 */
+	private static final class EmbeddedValueResolverHolder
+		implements AnnotationFormatterFactory<ExcelProperty>, EmbeddedValueResolverAware {
+
+		private StringValueResolver embeddedValueResolver;
+
+		@Override
+		public void setEmbeddedValueResolver(StringValueResolver resolver) {
+			this.embeddedValueResolver = resolver;
+		}
+
+		@Override
+		public Set<Class<?>> getFieldTypes() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public Printer<?> getPrinter(ExcelProperty annotation, Class<?> fieldType) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Parser<?> getParser(ExcelProperty annotation, Class<?> fieldType) {
+			throw new UnsupportedOperationException();
+		}
 	}
 
-	private Integer getColumnIndex(Field field) {
-		return field.getAnnotation(ExcelProperty.class).column();
+	/**
+	 * 和 {@link FormattingConversionService#addFormatterForFieldAnnotation} 注册的转换器一样，
+	 * 解析结果或原始值不是字段类型时再通过转换服务转换；编辑器有状态，每行创建一个
+	 */
+	private static final class FieldFormatEditor extends PropertyEditorSupport {
+
+		private final FieldFormat fieldFormat;
+
+		FieldFormatEditor(FieldFormat fieldFormat) {
+			this.fieldFormat = fieldFormat;
+		}
+
+		@Override
+		public void setAsText(String text) {
+			if (!StringUtils.hasText(text)) {
+				setValue(null);
+				return;
+			}
+			try {
+				setValue(fieldFormat.formatter.parse(text, LocaleContextHolder.getLocale()));
+			} catch (ParseException ex) {
+				throw new IllegalArgumentException("Parse attempt failed for value [" + text + "]", ex);
+			}
+		}
+
+		@Override
+		public void setValue(Object value) {
+			if (value != null && !fieldFormat.fieldType.getObjectType().isInstance(value)) {
+				value = fieldFormat.conversionService.convert(value, TypeDescriptor.forObject(value), fieldFormat.fieldType);
+			}
+			super.setValue(value);
+		}
 	}
 
 	static class ExcelPropertyAnnotationFormatterFactory extends EmbeddedValueResolutionSupport implements AnnotationFormatterFactory<ExcelProperty> {
 
-		private static final Set<Class<?>> FIELD_TYPES;
+		static final Set<Class<?>> FIELD_TYPES;
 
 		private static final Set<Class<?>> DATE_TIME_FIELD_TYPES;
 
@@ -83,6 +244,14 @@ public class AnnotationBasedRowSetMapper<T> extends BeanWrapperRowSetMapper<T> {
 			return FIELD_TYPES;
 		}
 
+		Formatter<?> getFormatter(ExcelProperty annotation, Class<?> fieldType) {
+			if (DATE_TIME_FIELD_TYPES.contains(fieldType)) {
+				return getDateFormatter(annotation);
+			} else {
+				return getNumberFormatter(annotation);
+			}
+		}
+
 		@Override
 		public Printer<?> getPrinter(ExcelProperty annotation, Class<?> fieldType) {
 			if (DATE_TIME_FIELD_TYPES.contains(fieldType)) {
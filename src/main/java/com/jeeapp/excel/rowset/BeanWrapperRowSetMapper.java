@@ -1,5 +1,8 @@
 package com.jeeapp.excel.rowset;
 
+import java.beans.PropertyDescriptor;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -7,44 +10,73 @@ import java.util.Properties;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyAccessor;
+import org.springframework.beans.PropertyAccessorUtils;
 import org.springframework.context.MessageSource;
 import org.springframework.context.support.MessageSourceAccessor;
 import org.springframework.context.support.ResourceBundleMessageSource;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.DataBinder;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.Validator;
+import com.jeeapp.excel.model.Row;
 
 /**
+ * 属性类型在创建时按类缓存，映射时只读取配置，配置完成后可在多个导入线程间共享同一个实例；
+ * setter 只能在共享前调用，映射过程中修改配置时同一批数据的各行可能按不同的配置映射
  * @author Justice
  */
 public class BeanWrapperRowSetMapper<T> implements RowSetMapper<T> {
 
+	private static final Map<Class<?>, Map<String, Class<?>>> PROPERTY_TYPES_CACHE = new ConcurrentReferenceHashMap<>();
+
 	private final Class<? extends T> type;
 
-	private boolean strict = true;
+	private final Map<String, Class<?>> propertyTypes;
+
+	private volatile boolean strict = true;
 
-	private Validator validator;
+	private volatile Validator validator;
 
-	private MessageSourceAccessor messages = DefaultMessageSource.getAccessor();
+	private volatile MessageSourceAccessor messages = DefaultMessageSource.getAccessor();
 
-	private ConversionService conversionService = DefaultConversionService.getSharedInstance();
+	private volatile ConversionService conversionService = DefaultConversionService.getSharedInstance();
 
-	private Map<String, Integer> fieldColumns;
+	private volatile Map<String, Integer> fieldColumns;
 
 	public BeanWrapperRowSetMapper(Class<? extends T> type) {
+		this(type, null);
+	}
+
+	/**
+	 * 供子类在构造时给出列序，不调用可被覆盖的 {@link #setFieldColumns}
+	 */
+	protected BeanWrapperRowSetMapper(Class<? extends T> type, Map<String, Integer> fieldColumns) {
 		this.type = type;
+		this.propertyTypes = PROPERTY_TYPES_CACHE.computeIfAbsent(type, BeanWrapperRowSetMapper::getPropertyTypes);
+		this.fieldColumns = copyOf(fieldColumns);
+	}
+
+	private static Map<String, Class<?>> getPropertyTypes(Class<?> type) {
+		Map<String, Class<?>> propertyTypes = new HashMap<>();
+		for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(type)) {
+			if (pd.getPropertyType() != null) {
+				propertyTypes.put(pd.getName(), pd.getPropertyType());
+			}
+		}
+		return Collections.unmodifiableMap(propertyTypes);
 	}
 
 	@Override
 	public T mapRowSet(RowSet rowSet) throws MappingException {
 		T copy = BeanUtils.instantiateClass(type);
 		DataBinder binder = createBinder(copy);
-		binder.bind(new MutablePropertyValues(getProperties(rowSet)));
+		binder.bind(getPropertyValues(rowSet));
 		binder.validate();
 		BindingResult bindingResult = binder.getBindingResult();
 		if (bindingResult.hasErrors()) {
@@ -52,7 +84,10 @@ public class BeanWrapperRowSetMapper<T> implements RowSetMapper<T> {
 			List<FieldError> fieldErrors = bindingResult.getFieldErrors();
 			MappingException ex = new MappingException(rowSet.getRow(), new BindException(bindingResult));
 			for (FieldError fieldError : fieldErrors) {
-				ex.addError(fieldColumns.get(fieldError.getField()), messages.getMessage(fieldError));
+				Integer column = getColumn(fieldColumns, fieldError.getField());
+				if (column != null) {
+					ex.addError(column, messages.getMessage(fieldError));
+				}
 			}
 			throw ex;
 		}
@@ -78,6 +113,57 @@ public class BeanWrapperRowSetMapper<T> implements RowSetMapper<T> {
 		return props;
 	}
 
+	/**
+	 * 读取原始值时，非字符串属性直接绑定数值、日期或布尔值，不再经过格式化和解析
+	 */
+	protected MutablePropertyValues getPropertyValues(RowSet rowSet) {
+		Row row = rowSet.getRow();
+		if (!row.hasRawValues()) {
+			return new MutablePropertyValues(getProperties(rowSet));
+		}
+		Map<String, Integer> fieldMappings = getFieldColumns(rowSet);
+		if (fieldMappings == null) {
+			throw new IllegalStateException("Cannot create properties without meta data");
+		}
+		String[] values = row.getCellValues();
+		int length = values.length;
+		MutablePropertyValues propertyValues = new MutablePropertyValues();
+		for (Entry<String, Integer> fieldMapping : fieldMappings.entrySet()) {
+			int column = fieldMapping.getValue();
+			if (column < length) {
+				Object value = isTextProperty(fieldMapping.getKey()) ? values[column] : row.getRawValue(column);
+				if (value != null) {
+					propertyValues.add(fieldMapping.getKey(), value);
+				}
+			}
+		}
+		return propertyValues;
+	}
+
+	/**
+	 * 取得属性所在的列，嵌套属性取顶层属性的列；属性没有对应的列时返回 null，错误只保留在 {@link BindException} 中
+	 */
+	static Integer getColumn(Map<String, Integer> fieldColumns, String field) {
+		if (fieldColumns == null) {
+			return null;
+		}
+		Integer column = fieldColumns.get(field);
+		if (column == null) {
+			int index = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(field);
+			if (index < 0) {
+				index = field.indexOf(PropertyAccessor.PROPERTY_KEY_PREFIX_CHAR);
+			}
+			if (index > 0) {
+				column = fieldColumns.get(field.substring(0, index));
+			}
+		}
+		return column;
+	}
+
+	private boolean isTextProperty(String propertyName) {
+		return propertyTypes.getOrDefault(propertyName, String.class) == String.class;
+	}
+
 	@Override
 	public MappingResult<T> getMappingResult(RowSet rowSet) {
 		MappingResult<T> mappingResult = RowSetMapper.super.getMappingResult(rowSet);
@@ -85,6 +171,10 @@ public class BeanWrapperRowSetMapper<T> implements RowSetMapper<T> {
 		return mappingResult;
 	}
 
+	public Map<String, Integer> getFieldColumns() {
+		return fieldColumns;
+	}
+
 	protected Map<String, Integer> getFieldColumns(RowSet rowSet) {
 		return fieldColumns;
 	}
@@ -123,17 +213,26 @@ public class BeanWrapperRowSetMapper<T> implements RowSetMapper<T> {
 	}
 
 	public void setFieldColumns(Map<String, Integer> fieldColumns) {
-		this.fieldColumns = fieldColumns;
+		this.fieldColumns = copyOf(fieldColumns);
+	}
+
+	private static Map<String, Integer> copyOf(Map<String, Integer> fieldColumns) {
+		return fieldColumns == null ? null : Collections.unmodifiableMap(new HashMap<>(fieldColumns));
 	}
 
 	static class DefaultMessageSource extends ResourceBundleMessageSource {
 
+		private static final MessageSourceAccessor ACCESSOR = new MessageSourceAccessor(new DefaultMessageSource());
+
 		public DefaultMessageSource() {
 			setBasename("com.jeeapp.excel.messages");
 		}
 
+		/**
+		 * 按当前线程的语言取消息，所有映射器共用
+		 */
 		public static MessageSourceAccessor getAccessor() {
-			return new MessageSourceAccessor(new DefaultMessageSource());
+			return ACCESSOR;
 		}
 	}
 }
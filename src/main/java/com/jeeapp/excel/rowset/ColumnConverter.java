@@ -0,0 +1,71 @@
+package com.jeeapp.excel.rowset;
+
+import java.text.ParseException;
+
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.format.Parser;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import com.jeeapp.excel.model.Row;
+
+/**
+ * 一列的取值和类型转换，目标类型、解析器和类型不匹配时的提示信息在创建时确定
+ * @author Justice
+ */
+final class ColumnConverter {
+
+	private static final TypeDescriptor STRING_TYPE = TypeDescriptor.valueOf(String.class);
+
+	final String field;
+
+	final int column;
+
+	final DefaultMessageSourceResolvable typeMismatch;
+
+	private final TypeDescriptor targetType;
+
+	private final Parser<?> parser;
+
+	private final Class<?> boxedType;
+
+	private final boolean text;
+
+	ColumnConverter(String field, int column, TypeDescriptor targetType, Parser<?> parser) {
+		this.field = field;
+		this.column = column;
+		this.targetType = targetType;
+		this.parser = parser;
+		this.boxedType = ClassUtils.resolvePrimitiveIfNecessary(targetType.getType());
+		this.text = targetType.getType() == String.class;
+		String[] codes = {
+			"typeMismatch." + field,
+			"typeMismatch." + targetType.getType().getName(),
+			"typeMismatch"
+		};
+		this.typeMismatch = new DefaultMessageSourceResolvable(codes);
+	}
+
+	/**
+	 * 读取原始值时，非字符串属性取数值、日期或布尔值，单元格为空时返回 null
+	 */
+	Object getValue(Row row, String[] values, boolean rawValues) {
+		if (column >= values.length) {
+			return null;
+		}
+		return rawValues && !text ? row.getRawValue(column) : values[column];
+	}
+
+	Object convert(Object value, ConversionService conversionService) throws ParseException {
+		if (parser != null && value instanceof String && StringUtils.hasText((String) value)) {
+			value = parser.parse((String) value, LocaleContextHolder.getLocale());
+		}
+		if (boxedType.isInstance(value)) {
+			return value;
+		}
+		TypeDescriptor sourceType = value instanceof String ? STRING_TYPE : TypeDescriptor.forObject(value);
+		return conversionService.convert(value, sourceType, targetType);
+	}
+}
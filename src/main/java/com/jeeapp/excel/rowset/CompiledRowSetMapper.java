@@ -0,0 +1,145 @@
+package com.jeeapp.excel.rowset;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.format.AnnotationFormatterFactory;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.format.support.FormattingConversionService;
+import org.springframework.util.ReflectionUtils;
+import com.jeeapp.excel.annotation.ExcelProperty;
+import com.jeeapp.excel.model.Row;
+
+/**
+ * 创建时一次性解析构造方法、各列的 setter 和类型转换，映射每行时只做转换和直接的 setter 调用，
+ * 不再经过 {@link org.springframework.validation.DataBinder}
+ * @author Justice
+ */
+public class CompiledRowSetMapper<T> extends AbstractCompiledRowSetMapper<T> {
+
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+	private static final Object ABSENT = new Object();
+
+	private final MethodHandle constructor;
+
+	private final ColumnConverter[] converters;
+
+	private final MethodHandle[] setters;
+
+	private final Object[] absent;
+
+	public CompiledRowSetMapper(Class<? extends T> type, Map<String, Integer> fieldColumns) {
+		this(type, fieldColumns, new DefaultFormattingConversionService());
+	}
+
+	public CompiledRowSetMapper(Class<? extends T> type, Map<String, Integer> fieldColumns,
+		ConversionService conversionService) {
+		this(type, fieldColumns, conversionService, null);
+	}
+
+	private CompiledRowSetMapper(Class<? extends T> type, Map<String, Integer> fieldColumns,
+		ConversionService conversionService, AnnotationFormatterFactory<ExcelProperty> formatterFactory) {
+		super(type, fieldColumns, conversionService, formatterFactory);
+		this.constructor = compileConstructor(type);
+		this.converters = new ColumnConverter[fieldColumns.size()];
+		this.setters = new MethodHandle[fieldColumns.size()];
+		int i = 0;
+		for (Entry<String, Integer> fieldColumn : fieldColumns.entrySet()) {
+			compileSetter(i++, fieldColumn.getKey(), fieldColumn.getValue());
+		}
+		this.absent = new Object[setters.length];
+		Arrays.fill(absent, ABSENT);
+	}
+
+	/**
+	 * 按 {@link ExcelProperty} 的列序映射，列格式和 {@link AnnotationBasedRowSetMapper} 一样用于解析数字和日期，
+	 * 各列的解析器在创建时取得
+	 */
+	public static <T> CompiledRowSetMapper<T> forAnnotations(Class<? extends T> type) {
+		return forAnnotations(type, new DefaultFormattingConversionService());
+	}
+
+	/**
+	 * 使用指定的转换服务，列格式中的占位符由它的占位符解析器解析
+	 */
+	public static <T> CompiledRowSetMapper<T> forAnnotations(Class<? extends T> type,
+		FormattingConversionService conversionService) {
+		return new CompiledRowSetMapper<>(type, getAnnotatedFieldColumns(type), conversionService,
+			AnnotationBasedRowSetMapper.createFormatterFactory(conversionService));
+	}
+
+	private static MethodHandle compileConstructor(Class<?> type) {
+		try {
+			Constructor<?> ctor = type.getDeclaredConstructor();
+			ReflectionUtils.makeAccessible(ctor);
+			return MethodHandles.lookup().unreflectConstructor(ctor).asType(CONSTRUCTOR_TYPE);
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalStateException("No accessible default constructor found on " + type.getName(), e);
+		}
+	}
+
+	private void compileSetter(int i, String field, int column) {
+		PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(type, field);
+		if (pd == null || pd.getWriteMethod() == null) {
+			throw new IllegalStateException("No writable property '" + field + "' found on " + type.getName());
+		}
+		try {
+			ReflectionUtils.makeAccessible(pd.getWriteMethod());
+			setters[i] = MethodHandles.lookup().unreflect(pd.getWriteMethod()).asType(SETTER_TYPE);
+			converters[i] = compileColumn(field, column,
+				new TypeDescriptor(MethodParameter.forExecutable(pd.getWriteMethod(), 0)));
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Setter of property '" + field + "' is not accessible", e);
+		}
+	}
+
+	@Override
+	public T mapRowSet(RowSet rowSet) throws MappingException {
+		Row row = rowSet.getRow();
+		Object[] values = absent.clone();
+		MappingException ex = convertColumns(row, converters, values);
+		if (ex != null) {
+			throw ex;
+		}
+		T target = newInstance();
+		for (int i = 0; i < setters.length; i++) {
+			if (values[i] != ABSENT) {
+				set(i, target, values[i]);
+			}
+		}
+		validate(row, target);
+		return target;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T newInstance() {
+		try {
+			return (T) constructor.invokeExact();
+		} catch (Throwable e) {
+			throw new IllegalStateException("Unable to instantiate " + type.getName(), e);
+		}
+	}
+
+	private void set(int i, Object target, Object value) {
+		try {
+			setters[i].invokeExact(target, value);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException("Unable to set property '" + converters[i].field + "'", e);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.jeeapp.excel.rowset;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.util.Map;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.format.AnnotationFormatterFactory;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.format.support.FormattingConversionService;
+import org.springframework.util.ReflectionUtils;
+import com.jeeapp.excel.annotation.ExcelProperty;
+import com.jeeapp.excel.model.Row;
+
+/**
+ * 通过全参构造方法映射不可变对象，各列的值转换后放入参数数组，再调用创建时解析好的构造方法，
+ * 参数按名称对应属性，需要 {@link java.beans.ConstructorProperties} 或使用 -parameters 编译
+ * @author Justice
+ */
+public class ConstructorRowSetMapper<T> extends AbstractCompiledRowSetMapper<T> {
+
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+	private final MethodHandle constructor;
+
+	private final ColumnConverter[] converters;
+
+	/**
+	 * 参数的默认值，基本类型为 0 或 false，其余为 null
+	 */
+	private final Object[] defaults;
+
+	public ConstructorRowSetMapper(Class<? extends T> type, Map<String, Integer> fieldColumns) {
+		this(type, fieldColumns, new DefaultFormattingConversionService());
+	}
+
+	public ConstructorRowSetMapper(Class<? extends T> type, Map<String, Integer> fieldColumns,
+		ConversionService conversionService) {
+		this(type, fieldColumns, conversionService, null);
+	}
+
+	private ConstructorRowSetMapper(Class<? extends T> type, Map<String, Integer> fieldColumns,
+		ConversionService conversionService, AnnotationFormatterFactory<ExcelProperty> formatterFactory) {
+		super(type, fieldColumns, conversionService, formatterFactory);
+		Constructor<? extends T> ctor = BeanUtils.getResolvableConstructor(type);
+		String[] names = BeanUtils.getParameterNames(ctor);
+		Class<?>[] parameterTypes = ctor.getParameterTypes();
+		this.converters = new ColumnConverter[names.length];
+		this.defaults = new Object[names.length];
+		for (int i = 0; i < names.length; i++) {
+			Integer column = fieldColumns.get(names[i]);
+			if (column != null) {
+				converters[i] = compileColumn(names[i], column, new TypeDescriptor(MethodParameter.forExecutable(ctor, i)));
+			}
+			if (parameterTypes[i].isPrimitive()) {
+				defaults[i] = Array.get(Array.newInstance(parameterTypes[i], 1), 0);
+			}
+		}
+		try {
+			ReflectionUtils.makeAccessible(ctor);
+			this.constructor = MethodHandles.lookup().unreflectConstructor(ctor)
+				.asSpreader(Object[].class, names.length)
+				.asType(CONSTRUCTOR_TYPE);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Constructor of " + type.getName() + " is not accessible", e);
+		}
+	}
+
+	/**
+	 * 按 {@link ExcelProperty} 的列序映射，注解所在字段和构造方法参数同名
+	 */
+	public static <T> ConstructorRowSetMapper<T> forAnnotations(Class<? extends T> type) {
+		return forAnnotations(type, new DefaultFormattingConversionService());
+	}
+
+	/**
+	 * 使用指定的转换服务，列格式中的占位符由它的占位符解析器解析
+	 */
+	public static <T> ConstructorRowSetMapper<T> forAnnotations(Class<? extends T> type,
+		FormattingConversionService conversionService) {
+		return new ConstructorRowSetMapper<>(type, getAnnotatedFieldColumns(type), conversionService,
+			AnnotationBasedRowSetMapper.createFormatterFactory(conversionService));
+	}
+
+	@Override
+	public T mapRowSet(RowSet rowSet) throws MappingException {
+		Row row = rowSet.getRow();
+		Object[] args = defaults.clone();
+		MappingException ex = convertColumns(row, converters, args);
+		if (ex != null) {
+			throw ex;
+		}
+		T target = newInstance(args);
+		validate(row, target);
+		return target;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T newInstance(Object[] args) {
+		try {
+			return (T) constructor.invokeExact(args);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException("Unable to instantiate " + type.getName(), e);
+		}
+	}
+}
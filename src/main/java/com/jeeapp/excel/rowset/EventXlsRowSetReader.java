@@ -1,224 +1,179 @@
 package com.jeeapp.excel.rowset;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.hssf.eventusermodel.EventWorkbookBuilder.SheetRecordCollectingListener;
-import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
 import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
-import org.apache.poi.hssf.eventusermodel.HSSFListener;
 import org.apache.poi.hssf.eventusermodel.HSSFRequest;
-import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
-import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
-import org.apache.poi.hssf.record.BOFRecord;
-import org.apache.poi.hssf.record.BlankRecord;
-import org.apache.poi.hssf.record.BoolErrRecord;
-import org.apache.poi.hssf.record.BoundSheetRecord;
-import org.apache.poi.hssf.record.EOFRecord;
-import org.apache.poi.hssf.record.FormulaRecord;
-import org.apache.poi.hssf.record.LabelRecord;
-import org.apache.poi.hssf.record.LabelSSTRecord;
-import org.apache.poi.hssf.record.NumberRecord;
-import org.apache.poi.hssf.record.Record;
-import org.apache.poi.hssf.record.SSTRecord;
-import org.apache.poi.hssf.record.StringRecord;
-import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
 
 /**
+ * 在后台线程上由 {@link HSSFEventFactory} 推送记录，组装好的行经有界队列交给调用方
  * @author Justice
  */
 @Slf4j
-class EventXlsRowSetReader implements RowSetReader {
-
-	private final AtomicInteger lastRowNum = new AtomicInteger();
+class EventXlsRowSetReader extends AbstractXlsRowSetReader {
 
 	private BlockingQueue<RowSet> rowSetQueue;
 
 	private ExecutorService taskExecutor;
 
-	private InputStream inputStream;
+	private boolean open;
 
-	private FormatTrackingHSSFListener formatListener;
+	private volatile boolean closed;
 
-	private boolean open;
+	private volatile Exception failure;
 
 	public EventXlsRowSetReader(InputStream inputStream) {
-		this.inputStream = inputStream;
+		this(inputStream, RowSetReaderOptions.options());
+	}
+
+	public EventXlsRowSetReader(InputStream inputStream, RowSetReaderOptions options) {
+		this(null, inputStream, options);
+	}
+
+	public EventXlsRowSetReader(File file, RowSetReaderOptions options) {
+		this(file, null, options);
+	}
+
+	private EventXlsRowSetReader(File file, InputStream inputStream, RowSetReaderOptions options) {
+		super(file, inputStream, options);
 	}
 
 	public void open() throws Exception {
 		open = true;
-		final POIFSFileSystem fileSystem = new POIFSFileSystem(inputStream);
 		final HSSFEventFactory hssfEventFactory = new HSSFEventFactory();
 		final HSSFRequest request = new HSSFRequest();
-		final MissingRecordAwareHSSFListener listener = new MissingRecordAwareHSSFListener(new HSSFListenerImpl(this));
-		formatListener = new FormatTrackingHSSFListener(listener);
-		request.addListenerForAllRecords(new SheetRecordCollectingListener(formatListener));
-		rowSetQueue = new LinkedBlockingQueue<>();
-		taskExecutor = Executors.newSingleThreadExecutor();
-		taskExecutor.execute(() -> {
+		request.addListenerForAllRecords(openWorkbook());
+		rowSetQueue = new ArrayBlockingQueue<>(options.getQueueCapacity());
+		Executor executor = options.getExecutor();
+		if (executor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("fastexcel-xls-");
+			threadFactory.setDaemon(true);
+			taskExecutor = Executors.newSingleThreadExecutor(threadFactory);
+			executor = taskExecutor;
+		}
+		executor.execute(() -> {
 			try {
-				hssfEventFactory.processWorkbookEvents(request, fileSystem);
-			} catch (IOException ignored) {
+				hssfEventFactory.processEvents(request, workbookStream);
+			} catch (Exception e) {
+				if (!closed) {
+					log.error("Unable to read workbook", e);
+					failure = e;
+				}
+			} finally {
+				// make sure the reader stops even if the stream ended early
+				sheetNamesRead(null);
+				try {
+					put(RowSetBuilder.builder().withNullRow().build());
+				} catch (CancellationException ignored) {
+				}
 			}
 		});
 	}
 
+	/**
+	 * 队列满时阻塞解析线程，读取器关闭后抛出 {@link CancellationException} 中止解析
+	 */
+	@Override
+	protected void put(RowSet rowSet) {
+		try {
+			while (!closed) {
+				if (rowSetQueue.offer(rowSet, 100, TimeUnit.MILLISECONDS)) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		throw new CancellationException("Reader is closed");
+	}
+
 	@Override
 	public RowSet read() throws Exception {
 		if (!open) {
 			open();
 		}
+		if (closed) {
+			return null;
+		}
 		RowSet rowSet = rowSetQueue.take();
 		if (rowSet.getRow() == null) {
-			close();
+			finish();
 			return null;
 		}
-		return RowSetBuilder.builder(rowSet).withLastRowNum(lastRowNum.get()).build();
+		// every queued row set belongs to this reader alone, no need to copy it
+		((RowSetImpl) rowSet).setLastRowNum(lastRowNum.get());
+		return rowSet;
 	}
 
-	public void close() throws Exception {
-		if (inputStream != null) {
-			inputStream.close();
-			inputStream = null;
+	@Override
+	public List<String> getSheetNames() throws Exception {
+		if (!open) {
+			open();
 		}
-		if (taskExecutor != null) {
-			taskExecutor.shutdown();
-			this.taskExecutor = null;
+		List<String> sheetNames = awaitSheetNames();
+		if (sheetNames == null) {
+			if (failure != null) {
+				throw failure;
+			}
+			return Collections.emptyList();
 		}
+		return sheetNames;
 	}
 
 	/**
-	 * @author yinyf
+	 * 阻塞等待第一行，其余已解析的行一次性从队列取出，每批只同步一次
 	 */
-	static final class HSSFListenerImpl implements HSSFListener {
-
-		private final EventXlsRowSetReader rowSetReader;
-
-		private final RowSetBuilder rowSetBuilder;
-
-		private final List<String> cellValues;
-
-		private List<BoundSheetRecord> boundSheetRecords;
-
-		private BoundSheetRecord[] orderedBoundSheetRecords;
-
-		private SSTRecord sstRecord;
-
-		private boolean worksheet;
-
-		private int eofCount = -1;
-
-		private int sheetIndex = -1;
-
-		private boolean outputNextStringRecord;
+	@Override
+	public List<RowSet> readBatch(int max) throws Exception {
+		Assert.isTrue(max > 0, "max must be greater than 0");
+		List<RowSet> rowSets = new ArrayList<>(Math.min(max, options.getQueueCapacity()));
+		RowSet rowSet = read();
+		if (rowSet == null) {
+			return rowSets;
+		}
+		rowSets.add(rowSet);
+		rowSetQueue.drainTo(rowSets, max - 1);
+		int last = rowSets.size() - 1;
+		if (rowSets.get(last).getRow() == null) {
+			rowSets.remove(last);
+			finish();
+		}
+		int rowNum = lastRowNum.get();
+		for (RowSet each : rowSets) {
+			((RowSetImpl) each).setLastRowNum(rowNum);
+		}
+		return rowSets;
+	}
 
-		HSSFListenerImpl(EventXlsRowSetReader rowSetReader) {
-			this.rowSetReader = rowSetReader;
-			this.rowSetBuilder = RowSetBuilder.builder();
-			this.cellValues = new ArrayList<>();
+	private void finish() throws Exception {
+		close();
+		if (failure != null) {
+			throw failure;
 		}
+	}
 
-		@Override
-		public void processRecord(Record record) {
-			String thisStr = null;
-			switch (record.getSid()) {
-				case BoundSheetRecord.sid:
-					if (boundSheetRecords == null) {
-						boundSheetRecords = new ArrayList<>();
-					}
-					boundSheetRecords.add((BoundSheetRecord) record);
-					break;
-				case BOFRecord.sid:
-					BOFRecord bofRecord = (BOFRecord) record;
-					if (bofRecord.getType() == BOFRecord.TYPE_WORKSHEET) {
-						worksheet = true;
-						sheetIndex++;
-						if (orderedBoundSheetRecords == null) {
-							orderedBoundSheetRecords = BoundSheetRecord.orderByBofPosition(boundSheetRecords);
-						}
-						rowSetBuilder.withSheet(sheetIndex, orderedBoundSheetRecords[sheetIndex].getSheetname());
-					} else {
-						worksheet = false;
-					}
-					break;
-				case SSTRecord.sid:
-					sstRecord = (SSTRecord) record;
-					break;
-				case BlankRecord.sid:
-					thisStr = "";
-					break;
-				case BoolErrRecord.sid:
-					BoolErrRecord boolErrRecord = (BoolErrRecord) record;
-					thisStr = boolErrRecord.getBooleanValue() + "";
-					break;
-				case FormulaRecord.sid:
-					FormulaRecord formulaRecord = (FormulaRecord) record;
-					if (formulaRecord.hasCachedResultString() && Double.isNaN(formulaRecord.getValue())) {
-						outputNextStringRecord = true;
-					} else {
-						thisStr = rowSetReader.formatListener.formatNumberDateCell(formulaRecord);
-					}
-					break;
-				case StringRecord.sid:
-					if (outputNextStringRecord) {
-						StringRecord stringRecord = (StringRecord) record;
-						thisStr = stringRecord.getString();
-						outputNextStringRecord = false;
-					}
-					break;
-				case LabelRecord.sid:
-					LabelRecord labelRecord = (LabelRecord) record;
-					thisStr = labelRecord.getValue();
-					break;
-				case LabelSSTRecord.sid:
-					LabelSSTRecord labelSstRecord = (LabelSSTRecord) record;
-					if (sstRecord == null) {
-						thisStr = "";
-					} else {
-						thisStr = sstRecord.getString(labelSstRecord.getSSTIndex()).toString();
-					}
-					break;
-				case NumberRecord.sid:
-					NumberRecord numberRecord = (NumberRecord) record;
-					thisStr = rowSetReader.formatListener.formatNumberDateCell(numberRecord);
-					break;
-				case EOFRecord.sid:
-					eofCount++;
-					if (worksheet && eofCount == boundSheetRecords.size()) {
-						try {
-							rowSetReader.rowSetQueue.put(rowSetBuilder.withNullRow().build());
-						} catch (Exception e) {
-							log.error("Unable to send row to the queue", e);
-						}
-					}
-					break;
-				default:
-					break;
-			}
-			if (thisStr != null) {
-				cellValues.add(thisStr);
-			}
-			if (record instanceof LastCellOfRowDummyRecord) {
-				LastCellOfRowDummyRecord lastCellOfRowDummyRecord = (LastCellOfRowDummyRecord) record;
-				int rowNum = lastCellOfRowDummyRecord.getRow();
-				try {
-					rowSetReader.lastRowNum.incrementAndGet();
-					String[] cellValues = this.cellValues.toArray(new String[]{});
-					rowSetReader.rowSetQueue.put(rowSetBuilder.withRow(rowNum, cellValues).build());
-				} catch (Exception e) {
-					log.error("Unable to send row to the queue", e);
-				}
-				cellValues.clear();
-			}
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		if (taskExecutor != null) {
+			taskExecutor.shutdownNow();
+			this.taskExecutor = null;
 		}
+		closeWorkbook();
 	}
 }
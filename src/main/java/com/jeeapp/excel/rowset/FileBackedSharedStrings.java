@@ -0,0 +1,303 @@
+package com.jeeapp.excel.rowset;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.springframework.util.xml.StaxUtils;
+
+/**
+ * 共享字符串表写入临时文件并通过内存映射按偏移量读取，堆内存仅保留有限的 LRU 缓存
+ * @author Justice
+ */
+@Slf4j
+public class FileBackedSharedStrings implements SharedStrings, Closeable {
+
+	public static final int DEFAULT_CACHE_SIZE = 8192;
+
+	private static final int SEGMENT_SIZE = 1 << 30;
+
+	private final Map<Integer, String> cache;
+
+	private Path dataFile;
+
+	private Path indexFile;
+
+	private MappedByteBuffer[] dataSegments;
+
+	private MappedByteBuffer[] indexSegments;
+
+	private int count;
+
+	private int uniqueCount;
+
+	private int size;
+
+	public FileBackedSharedStrings(OPCPackage opcPackage) throws IOException {
+		this(opcPackage, DEFAULT_CACHE_SIZE);
+	}
+
+	public FileBackedSharedStrings(OPCPackage opcPackage, int cacheSize) throws IOException {
+		this.cache = new LinkedHashMap<Integer, String>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 5381718385472954512L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+				return size() > cacheSize;
+			}
+		};
+		List<PackagePart> parts = opcPackage.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+		// Some workbooks have no shared strings table.
+		if (!parts.isEmpty()) {
+			try (InputStream is = parts.get(0).getInputStream()) {
+				readFrom(is);
+			} catch (IOException | RuntimeException e) {
+				close();
+				throw e;
+			}
+		}
+	}
+
+	private void readFrom(InputStream is) throws IOException {
+		dataFile = Files.createTempFile("fastexcel-sst", ".dat");
+		indexFile = Files.createTempFile("fastexcel-sst", ".idx");
+		long offset = 0;
+		try (OutputStream data = new BufferedOutputStream(Files.newOutputStream(dataFile), 65536);
+			 DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 65536))) {
+			XMLStreamReader reader = StaxUtils.createDefensiveInputFactory().createXMLStreamReader(is);
+			StringBuilder characters = new StringBuilder(64);
+			boolean tIsOpen = false;
+			index.writeLong(offset);
+			while (reader.hasNext()) {
+				int type = reader.next();
+				if (type == XMLStreamConstants.START_ELEMENT) {
+					String localName = reader.getLocalName();
+					if ("sst".equals(localName)) {
+						count = parseInt(reader.getAttributeValue(null, "count"));
+						uniqueCount = parseInt(reader.getAttributeValue(null, "uniqueCount"));
+					} else if ("si".equals(localName)) {
+						characters.setLength(0);
+					} else if ("t".equals(localName)) {
+						tIsOpen = true;
+					} else if ("rPh".equals(localName)) {
+						// append space...this assumes that rPh always comes after regular <t>
+						if (characters.length() > 0) {
+							characters.append(' ');
+						}
+					}
+				} else if (type == XMLStreamConstants.END_ELEMENT) {
+					String localName = reader.getLocalName();
+					if ("si".equals(localName)) {
+						byte[] bytes = characters.toString().getBytes(StandardCharsets.UTF_8);
+						data.write(bytes);
+						offset += bytes.length;
+						index.writeLong(offset);
+						size++;
+					} else if ("t".equals(localName)) {
+						tIsOpen = false;
+					}
+				} else if (tIsOpen && (type == XMLStreamConstants.CHARACTERS || type == XMLStreamConstants.CDATA)) {
+					characters.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				}
+			}
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException("Unable to read shared strings", e);
+		}
+		dataSegments = map(dataFile);
+		indexSegments = map(indexFile);
+	}
+
+	private static int parseInt(String value) {
+		return value == null ? 0 : Integer.parseInt(value);
+	}
+
+	private static MappedByteBuffer[] map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			MappedByteBuffer[] segments = new MappedByteBuffer[(int) (size / SEGMENT_SIZE) + 1];
+			for (int i = 0; i < segments.length; i++) {
+				long position = (long) i * SEGMENT_SIZE;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+			}
+			return segments;
+		}
+	}
+
+	/**
+	 * 索引项按 8 字节对齐，不会跨段
+	 */
+	private static long getLong(MappedByteBuffer[] segments, long position) {
+		return segments[(int) (position / SEGMENT_SIZE)].getLong((int) (position % SEGMENT_SIZE));
+	}
+
+	/**
+	 * 按段批量读取，字符串跨段时分两次读取；使用 duplicate 避免多线程读取时共享 position
+	 */
+	private static void get(MappedByteBuffer[] segments, long position, byte[] bytes) {
+		int offset = 0;
+		while (offset < bytes.length) {
+			ByteBuffer segment = segments[(int) (position / SEGMENT_SIZE)].duplicate();
+			segment.position((int) (position % SEGMENT_SIZE));
+			int length = Math.min(bytes.length - offset, segment.remaining());
+			segment.get(bytes, offset, length);
+			offset += length;
+			position += length;
+		}
+	}
+
+	/**
+	 * 获取共享字符串的文本，不创建 {@link XSSFRichTextString}
+	 */
+	public String getString(int idx) {
+		String value = getRawString(idx);
+		// only escaped characters such as _x000D_ need the rich text decoding
+		return value.contains("_x") ? new XSSFRichTextString(value).getString() : value;
+	}
+
+	private String getRawString(int idx) {
+		synchronized (cache) {
+			String value = cache.get(idx);
+			if (value != null) {
+				return value;
+			}
+		}
+		if (dataSegments == null || idx < 0 || idx >= size) {
+			throw new IndexOutOfBoundsException("Shared string index " + idx + " is out of range");
+		}
+		long start = getLong(indexSegments, (long) idx * Long.BYTES);
+		long end = getLong(indexSegments, (long) (idx + 1) * Long.BYTES);
+		byte[] bytes = new byte[(int) (end - start)];
+		get(dataSegments, start, bytes);
+		String value = new String(bytes, StandardCharsets.UTF_8);
+		synchronized (cache) {
+			cache.put(idx, value);
+		}
+		return value;
+	}
+
+	/**
+	 * 返回只包含文本的 {@link RichTextString}，不解析格式，读取时无需创建 {@link XSSFRichTextString}
+	 */
+	@Override
+	public RichTextString getItemAt(int idx) {
+		return new PlainRichTextString(getString(idx));
+	}
+
+	@Override
+	public int getCount() {
+		return count;
+	}
+
+	@Override
+	public int getUniqueCount() {
+		return uniqueCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		dataSegments = null;
+		indexSegments = null;
+		synchronized (cache) {
+			cache.clear();
+		}
+		deleteQuietly(dataFile);
+		deleteQuietly(indexFile);
+	}
+
+	private static void deleteQuietly(Path file) {
+		if (file != null) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				log.warn("Unable to delete temp file {}", file, e);
+			}
+		}
+	}
+
+	/**
+	 * 只读的纯文本，不支持设置字体
+	 */
+	private static final class PlainRichTextString implements RichTextString {
+
+		private final String string;
+
+		PlainRichTextString(String string) {
+			this.string = string;
+		}
+
+		@Override
+		public String getString() {
+			return string;
+		}
+
+		@Override
+		public int length() {
+			return string.length();
+		}
+
+		@Override
+		public int numFormattingRuns() {
+			return 0;
+		}
+
+		@Override
+		public int getIndexOfFormattingRun(int index) {
+			return -1;
+		}
+
+		@Override
+		public void applyFont(int startIndex, int endIndex, short fontIndex) {
+			throw new UnsupportedOperationException("Shared strings are read-only");
+		}
+
+		@Override
+		public void applyFont(int startIndex, int endIndex, Font font) {
+			throw new UnsupportedOperationException("Shared strings are read-only");
+		}
+
+		@Override
+		public void applyFont(Font font) {
+			throw new UnsupportedOperationException("Shared strings are read-only");
+		}
+
+		@Override
+		public void applyFont(short fontIndex) {
+			throw new UnsupportedOperationException("Shared strings are read-only");
+		}
+
+		@Override
+		public void clearFormatting() {
+		}
+
+		@Override
+		public String toString() {
+			return string;
+		}
+	}
+}
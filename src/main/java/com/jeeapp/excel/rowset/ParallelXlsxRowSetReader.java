@@ -0,0 +1,179 @@
+package com.jeeapp.excel.rowset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import com.jeeapp.excel.util.CellFormats;
+
+/**
+ * 每个工作表由单独的线程解析，按工作表顺序或交错返回行；
+ * 按顺序返回时每个工作表有各自的有界队列，后面的工作表预读满队列后等待，不会缓存整个工作表
+ * @author Justice
+ */
+@Slf4j
+class ParallelXlsxRowSetReader implements RowSetReader {
+
+	private final RowSetReaderOptions options;
+
+	private final List<BlockingQueue<RowSet>> queues;
+
+	private final File file;
+
+	private InputStream inputStream;
+
+	private XlsxWorkbook workbook;
+
+	private ExecutorService taskExecutor;
+
+	private volatile boolean closed;
+
+	private volatile Exception failure;
+
+	private List<String> sheetNames;
+
+	private boolean open;
+
+	private int current;
+
+	private int remaining;
+
+	public ParallelXlsxRowSetReader(InputStream inputStream, RowSetReaderOptions options) {
+		this(null, inputStream, options);
+	}
+
+	public ParallelXlsxRowSetReader(File file, RowSetReaderOptions options) {
+		this(file, null, options);
+	}
+
+	private ParallelXlsxRowSetReader(File file, InputStream inputStream, RowSetReaderOptions options) {
+		this.file = file;
+		this.inputStream = inputStream;
+		this.options = options;
+		this.queues = new ArrayList<>();
+	}
+
+	public void open() throws Exception {
+		open = true;
+		workbook = file != null ? XlsxWorkbook.open(file, options) : XlsxWorkbook.open(inputStream, options);
+		sheetNames = workbook.getSheetNames();
+		List<XlsxWorkbook.Sheet> sheets = workbook.getSheets();
+		remaining = sheets.size();
+		if (sheets.isEmpty()) {
+			return;
+		}
+		Executor executor = options.getExecutor();
+		if (executor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("fastexcel-sheet-");
+			threadFactory.setDaemon(true);
+			int threads = Math.min(sheets.size(), Runtime.getRuntime().availableProcessors());
+			taskExecutor = Executors.newFixedThreadPool(threads, threadFactory);
+			executor = taskExecutor;
+		}
+		if (!options.isOrdered()) {
+			queues.add(new ArrayBlockingQueue<>(options.getQueueCapacity()));
+		}
+		for (XlsxWorkbook.Sheet sheet : sheets) {
+			BlockingQueue<RowSet> queue;
+			if (options.isOrdered()) {
+				queue = new ArrayBlockingQueue<>(options.getQueueCapacity());
+				queues.add(queue);
+			} else {
+				queue = queues.get(0);
+			}
+			executor.execute(() -> parse(sheet, queue));
+		}
+	}
+
+	private void parse(XlsxWorkbook.Sheet sheet, BlockingQueue<RowSet> queue) {
+		CellFormats cellFormats = workbook.getCellFormats().withFormatter(new DataFormatter());
+		try (XlsxSheetParser parser = workbook.openSheet(sheet, false, cellFormats)) {
+			RowSet rowSet;
+			while ((rowSet = parser.read()) != null) {
+				if (!put(queue, rowSet)) {
+					return;
+				}
+			}
+		} catch (Exception e) {
+			if (!closed) {
+				log.error("Unable to read sheet {}", sheet.getName(), e);
+				failure = e;
+			}
+		}
+		put(queue, RowSetBuilder.builder().withSheet(sheet.getIndex(), sheet.getName()).withNullRow().build());
+	}
+
+	private boolean put(BlockingQueue<RowSet> queue, RowSet rowSet) {
+		try {
+			while (!closed) {
+				if (queue.offer(rowSet, 100, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+
+	@Override
+	public List<String> getSheetNames() throws Exception {
+		if (!open) {
+			open();
+		}
+		return sheetNames;
+	}
+
+	@Override
+	public RowSet read() throws Exception {
+		if (!open) {
+			open();
+		}
+		while (remaining > 0) {
+			RowSet rowSet = queues.get(current).take();
+			if (rowSet.getRow() != null) {
+				return rowSet;
+			}
+			if (failure != null) {
+				Exception ex = failure;
+				close();
+				throw ex;
+			}
+			remaining--;
+			if (options.isOrdered()) {
+				current++;
+			}
+		}
+		close();
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		remaining = 0;
+		if (taskExecutor != null) {
+			taskExecutor.shutdownNow();
+			taskExecutor = null;
+		}
+		if (workbook != null) {
+			workbook.close();
+			workbook = null;
+		}
+		if (inputStream != null) {
+			inputStream.close();
+			inputStream = null;
+		}
+	}
+}
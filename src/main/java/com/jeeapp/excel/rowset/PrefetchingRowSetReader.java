@@ -0,0 +1,185 @@
+package com.jeeapp.excel.rowset;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * 在后台线程上按批预先解析行，解析与调用方的处理重叠进行，预读的批数有上限
+ * @author Justice
+ * @see RowSetReaderOptions#withPrefetch(int)
+ */
+@Slf4j
+class PrefetchingRowSetReader implements RowSetReader {
+
+	static final int BATCH_SIZE = 256;
+
+	private final RowSetReader rowSetReader;
+
+	private final RowSetReaderOptions options;
+
+	private BlockingQueue<List<RowSet>> batches;
+
+	private ExecutorService taskExecutor;
+
+	/**
+	 * 后台任务和 close 争用被包装的读取器，先取得的一方负责关闭；任务尚未开始时由 close 直接关闭，任务开始后立即退出
+	 */
+	private final AtomicBoolean claimed = new AtomicBoolean();
+
+	/**
+	 * 后台任务取得读取器后独占使用，退出前关闭读取器并计数
+	 */
+	private final CountDownLatch prefetched = new CountDownLatch(1);
+
+	private List<String> sheetNames;
+
+	private Iterator<RowSet> batch = Collections.emptyIterator();
+
+	private boolean open;
+
+	private boolean finished;
+
+	private volatile boolean closed;
+
+	private volatile Exception failure;
+
+	PrefetchingRowSetReader(RowSetReader rowSetReader, RowSetReaderOptions options) {
+		this.rowSetReader = rowSetReader;
+		this.options = options;
+	}
+
+	/**
+	 * 设置了预读时在读取器外包装一层预读
+	 */
+	static RowSetReader wrap(RowSetReader rowSetReader, RowSetReaderOptions options) {
+		if (options.getPrefetch() == 0) {
+			return rowSetReader;
+		}
+		return new PrefetchingRowSetReader(rowSetReader, options);
+	}
+
+	public void open() throws Exception {
+		open = true;
+		// open the workbook on the caller's thread so that invalid files fail right here
+		sheetNames = rowSetReader.getSheetNames();
+		batches = new ArrayBlockingQueue<>(options.getPrefetch());
+		Executor executor = options.getExecutor();
+		if (executor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("fastexcel-prefetch-");
+			threadFactory.setDaemon(true);
+			taskExecutor = Executors.newSingleThreadExecutor(threadFactory);
+			executor = taskExecutor;
+		}
+		executor.execute(this::prefetch);
+	}
+
+	private void prefetch() {
+		if (!claimed.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			List<RowSet> rowSets;
+			do {
+				rowSets = rowSetReader.readBatch(BATCH_SIZE);
+				if (!put(rowSets)) {
+					return;
+				}
+			} while (!rowSets.isEmpty());
+		} catch (Exception e) {
+			if (!closed) {
+				log.error("Unable to prefetch rows", e);
+				failure = e;
+				put(Collections.emptyList());
+			}
+		} finally {
+			try {
+				rowSetReader.close();
+			} catch (Exception e) {
+				log.warn("Unable to close the prefetched reader", e);
+			}
+			prefetched.countDown();
+		}
+	}
+
+	private boolean put(List<RowSet> rowSets) {
+		try {
+			while (!closed) {
+				if (batches.offer(rowSets, 100, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+
+	@Override
+	public RowSet read() throws Exception {
+		if (!open) {
+			open();
+		}
+		while (!batch.hasNext()) {
+			if (finished) {
+				return null;
+			}
+			List<RowSet> rowSets = batches.take();
+			if (rowSets.isEmpty()) {
+				finished = true;
+				close();
+				if (failure != null) {
+					throw failure;
+				}
+				return null;
+			}
+			batch = rowSets.iterator();
+		}
+		return batch.next();
+	}
+
+	@Override
+	public List<String> getSheetNames() throws Exception {
+		if (!open) {
+			open();
+		}
+		return sheetNames;
+	}
+
+	/**
+	 * 被包装的读取器不是线程安全的，后台任务已经开始时等待其读完当前批次并关闭读取器，
+	 * 任务还在线程池中排队时直接关闭，不等待任务执行
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		finished = true;
+		if (taskExecutor != null) {
+			taskExecutor.shutdownNow();
+			taskExecutor = null;
+		}
+		if (claimed.compareAndSet(false, true)) {
+			rowSetReader.close();
+		} else {
+			try {
+				prefetched.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the prefetch task to close the reader");
+			}
+		}
+	}
+}
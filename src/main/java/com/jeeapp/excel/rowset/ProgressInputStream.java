@@ -0,0 +1,81 @@
+package com.jeeapp.excel.rowset;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 统计读取和跳过的字节数，支持 mark/reset，reset 后重复读取的字节只在超过已读位置时统计
+ * @author Justice
+ */
+class ProgressInputStream extends FilterInputStream {
+
+	private final ReadProgress progress;
+
+	/**
+	 * 当前位置，reset 后回退到 mark 的位置
+	 */
+	private long position;
+
+	/**
+	 * 已统计到的最远位置
+	 */
+	private long counted;
+
+	private long markPosition = -1;
+
+	ProgressInputStream(InputStream in, ReadProgress progress) {
+		super(in);
+		this.progress = progress;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = in.read();
+		if (b >= 0) {
+			advance(1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = in.read(b, off, len);
+		if (n > 0) {
+			advance(n);
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = in.skip(n);
+		if (skipped > 0) {
+			advance(skipped);
+		}
+		return skipped;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		in.mark(readlimit);
+		markPosition = position;
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		if (markPosition < 0) {
+			throw new IOException("Mark not set");
+		}
+		in.reset();
+		position = markPosition;
+	}
+
+	private void advance(long bytes) {
+		position += bytes;
+		if (position > counted) {
+			progress.addBytesRead(position - counted);
+			counted = position;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.jeeapp.excel.rowset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
+
+/**
+ * 在调用方线程上通过 {@link RecordFactoryInputStream} 逐条拉取记录，读取时才组装下一行，不需要后台线程和队列
+ * @author Justice
+ */
+class PullXlsRowSetReader extends AbstractXlsRowSetReader {
+
+	private final Deque<RowSet> pending = new ArrayDeque<>();
+
+	private RecordFactoryInputStream recordStream;
+
+	private HSSFListener listener;
+
+	private boolean open;
+
+	private boolean finished;
+
+	public PullXlsRowSetReader(InputStream inputStream, RowSetReaderOptions options) {
+		super(null, inputStream, options);
+	}
+
+	public PullXlsRowSetReader(File file, RowSetReaderOptions options) {
+		super(file, null, options);
+	}
+
+	public void open() throws Exception {
+		open = true;
+		listener = openWorkbook();
+		recordStream = new RecordFactoryInputStream(workbookStream, false);
+	}
+
+	@Override
+	protected void put(RowSet rowSet) {
+		pending.add(rowSet);
+	}
+
+	private void pull() throws Exception {
+		try {
+			Record record = recordStream.nextRecord();
+			if (record == null) {
+				finished = true;
+			} else {
+				listener.processRecord(record);
+			}
+		} catch (Exception e) {
+			close();
+			throw e;
+		}
+	}
+
+	@Override
+	public List<String> getSheetNames() throws Exception {
+		if (!open) {
+			open();
+		}
+		while (sheetNames() == null && !finished) {
+			pull();
+		}
+		return sheetNames() != null ? sheetNames() : Collections.<String>emptyList();
+	}
+
+	@Override
+	public RowSet read() throws Exception {
+		if (!open) {
+			open();
+		}
+		// a single record may complete several rows when empty rows are filled in
+		while (pending.isEmpty() && !finished) {
+			pull();
+		}
+		RowSet rowSet = pending.poll();
+		if (rowSet == null || rowSet.getRow() == null) {
+			close();
+			return null;
+		}
+		((RowSetImpl) rowSet).setLastRowNum(lastRowNum.get());
+		return rowSet;
+	}
+
+	@Override
+	public void close() throws IOException {
+		finished = true;
+		pending.clear();
+		closeWorkbook();
+	}
+}
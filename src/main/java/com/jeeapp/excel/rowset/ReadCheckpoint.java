@@ -0,0 +1,43 @@
+package com.jeeapp.excel.rowset;
+
+import java.io.Serializable;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.util.Assert;
+
+/**
+ * 读取进度检查点，记录已经处理完的最后一行，重新打开同一文件时从下一行继续读取
+ * @author Justice
+ * @see RowSetReaderOptions#withCheckpoint(ReadCheckpoint)
+ */
+@Getter
+@ToString
+public class ReadCheckpoint implements Serializable {
+
+	private static final long serialVersionUID = -4290465327185627153L;
+
+	/**
+	 * 工作表在工作簿中的序号
+	 */
+	private final int sheetIndex;
+
+	/**
+	 * 已经处理完的最后一行的行号
+	 */
+	private final int rowNum;
+
+	public ReadCheckpoint(int sheetIndex, int rowNum) {
+		Assert.isTrue(sheetIndex >= 0, "sheetIndex must not be negative");
+		this.sheetIndex = sheetIndex;
+		this.rowNum = rowNum;
+	}
+
+	/**
+	 * 以已经处理完的行创建检查点
+	 */
+	public static ReadCheckpoint of(RowSet rowSet) {
+		Assert.notNull(rowSet.getRow(), "rowSet must have a row");
+		return new ReadCheckpoint(rowSet.getSheetIndex(), rowSet.getRow().getRowNum());
+	}
+}
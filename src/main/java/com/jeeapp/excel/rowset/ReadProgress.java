@@ -0,0 +1,115 @@
+package com.jeeapp.excel.rowset;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 读取进度，按已解析的字节数和行数统计，可以在其他线程上随时无锁读取
+ * @author Justice
+ * @see RowSetReaderOptions#withProgress(ReadProgress)
+ */
+public class ReadProgress {
+
+	private final AtomicLong bytesRead = new AtomicLong();
+
+	private final AtomicLong totalBytes = new AtomicLong();
+
+	private final AtomicLong rows = new AtomicLong();
+
+	private volatile boolean totalBytesUnknown;
+
+	private volatile long startNanos;
+
+	private volatile long endNanos;
+
+	void start() {
+		if (startNanos == 0) {
+			startNanos = System.nanoTime();
+		}
+	}
+
+	void finish() {
+		if (startNanos != 0 && endNanos == 0) {
+			endNanos = System.nanoTime();
+		}
+	}
+
+	void addTotalBytes(long bytes) {
+		if (bytes < 0) {
+			totalBytesUnknown = true;
+		} else {
+			totalBytes.addAndGet(bytes);
+		}
+	}
+
+	void addBytesRead(long bytes) {
+		bytesRead.addAndGet(bytes);
+	}
+
+	void addRow() {
+		rows.incrementAndGet();
+	}
+
+	/**
+	 * 已经解析的字节数，xlsx 为工作表部件解压后的字节数，xls 为工作簿流的字节数，跳过的部分也计算在内
+	 */
+	public long getBytesRead() {
+		return bytesRead.get();
+	}
+
+	/**
+	 * 需要解析的总字节数，未知时为 -1
+	 */
+	public long getTotalBytes() {
+		return totalBytesUnknown ? -1 : totalBytes.get();
+	}
+
+	/**
+	 * 已经解析的行数，后台解析时可能多于已经读取的行数
+	 */
+	public long getRows() {
+		return rows.get();
+	}
+
+	public long getElapsedMillis() {
+		long start = startNanos;
+		if (start == 0) {
+			return 0;
+		}
+		long end = endNanos;
+		return TimeUnit.NANOSECONDS.toMillis((end != 0 ? end : System.nanoTime()) - start);
+	}
+
+	public double getRowsPerSecond() {
+		long elapsed = getElapsedMillis();
+		return elapsed == 0 ? 0 : getRows() * 1000d / elapsed;
+	}
+
+	/**
+	 * 按字节数计算的完成比例，总字节数未知时为 -1
+	 */
+	public double getFraction() {
+		long total = getTotalBytes();
+		if (total <= 0) {
+			return total == 0 && endNanos != 0 ? 1 : -1;
+		}
+		return Math.min(1d, (double) getBytesRead() / total);
+	}
+
+	/**
+	 * 按字节数估算的剩余时间，无法估算时为 -1
+	 */
+	public long getEstimatedRemainingMillis() {
+		double fraction = getFraction();
+		if (fraction <= 0) {
+			return -1;
+		}
+		return (long) (getElapsedMillis() * (1 - fraction) / fraction);
+	}
+
+	@Override
+	public String toString() {
+		return "ReadProgress(bytesRead=" + getBytesRead() + ", totalBytes=" + getTotalBytes() + ", rows=" + getRows()
+			+ ", rowsPerSecond=" + (long) getRowsPerSecond() + ")";
+	}
+}
@@ -0,0 +1,156 @@
+package com.jeeapp.excel.rowset;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.jeeapp.excel.model.CellValueType;
+import com.jeeapp.excel.model.Row;
+
+/**
+ * 按列号缓存当前行的单元格值，读取原始值时同时缓存单元格类型和数值，只读取部分列时其余列不占位
+ * @author Justice
+ */
+class RowBuffer {
+
+	private final boolean rawValues;
+
+	private final BitSet columns;
+
+	private final RowSetImpl reusableRowSet;
+
+	private final Row reusableRow;
+
+	/**
+	 * Excel 2007 起的最大列数，预分配时不超过此值，以免错误的 dimension 占用过多内存
+	 */
+	static final int MAX_COLUMNS = 16384;
+
+	private int rowNum;
+
+	/**
+	 * 当前工作表中出现过的最大列号加一，返回的行按此长度复制
+	 */
+	private int width;
+
+	private String[] cellValues = new String[0];
+
+	private CellValueType[] cellTypes = new CellValueType[0];
+
+	private double[] numericValues = new double[0];
+
+	/**
+	 * 复用行对象时交给调用方的数组，长度始终等于 width，和复制模式返回的行一致；只在 width 变化时重新分配
+	 */
+	private String[] reusableCellValues = new String[0];
+
+	private CellValueType[] reusableCellTypes = new CellValueType[0];
+
+	private double[] reusableNumericValues = new double[0];
+
+	RowBuffer(RowSetReaderOptions options, boolean reuse) {
+		this.rawValues = options.isRawValues();
+		this.columns = options.getColumns();
+		this.reusableRowSet = reuse ? new RowSetImpl() : null;
+		this.reusableRow = reuse ? new Row(0, cellValues) : null;
+	}
+
+	/**
+	 * 列是否需要读取，不需要读取的单元格在解析时直接跳过
+	 */
+	boolean accept(int col) {
+		return columns == null || columns.get(col);
+	}
+
+	void startRow(int rowNum) {
+		Arrays.fill(cellValues, 0, width, null);
+		if (rawValues) {
+			Arrays.fill(cellTypes, 0, width, null);
+			Arrays.fill(numericValues, 0, width, 0);
+		}
+		this.rowNum = rowNum;
+	}
+
+	void cell(int col, String formattedValue) {
+		ensureCapacity(col);
+		cellValues[col] = formattedValue;
+	}
+
+	void cell(int col, String rawValue, CellValueType cellType, double numericValue) {
+		ensureCapacity(col);
+		cellValues[col] = rawValue;
+		if (rawValues) {
+			cellTypes[col] = cellType;
+			numericValues[col] = numericValue;
+		}
+	}
+
+	private void ensureCapacity(int col) {
+		if (col < width) {
+			return;
+		}
+		if (col >= cellValues.length) {
+			grow(Math.max(col + 1, cellValues.length * 2));
+		}
+		width = col + 1;
+	}
+
+	/**
+	 * 按工作表声明的列数预先分配，避免解析过程中逐步扩容
+	 */
+	void presize(int columns) {
+		int length = Math.min(columns, MAX_COLUMNS);
+		if (length > cellValues.length) {
+			grow(length);
+		}
+	}
+
+	private void grow(int length) {
+		cellValues = Arrays.copyOf(cellValues, length);
+		if (rawValues) {
+			cellTypes = Arrays.copyOf(cellTypes, length);
+			numericValues = Arrays.copyOf(numericValues, length);
+		}
+	}
+
+	void setRowNum(int rowNum) {
+		this.rowNum = rowNum;
+	}
+
+	boolean isRawValues() {
+		return rawValues;
+	}
+
+	RowSet build(RowSetBuilder rowSetBuilder) {
+		if (reusableRow != null) {
+			// flyweight mode, the arrays handed out are only valid until the next row
+			if (reusableCellValues.length != width) {
+				reusableCellValues = new String[width];
+				if (rawValues) {
+					reusableCellTypes = new CellValueType[width];
+					reusableNumericValues = new double[width];
+				}
+			}
+			System.arraycopy(cellValues, 0, reusableCellValues, 0, width);
+			if (rawValues) {
+				System.arraycopy(cellTypes, 0, reusableCellTypes, 0, width);
+				System.arraycopy(numericValues, 0, reusableNumericValues, 0, width);
+			}
+			reusableRow.setRowNum(rowNum);
+			reusableRow.setCellValues(reusableCellValues);
+			reusableRow.setComments(null);
+			reusableRow.setCellTypes(rawValues ? reusableCellTypes : null);
+			reusableRow.setNumericValues(rawValues ? reusableNumericValues : null);
+			return rowSetBuilder.withRow(reusableRow).build(reusableRowSet);
+		}
+		String[] values = Arrays.copyOf(cellValues, width);
+		if (rawValues) {
+			return rowSetBuilder.withRow(rowNum, values, Arrays.copyOf(cellTypes, width),
+				Arrays.copyOf(numericValues, width)).build();
+		}
+		return rowSetBuilder.withRow(rowNum, values).build();
+	}
+
+	int getRowNum() {
+		return rowNum;
+	}
+}
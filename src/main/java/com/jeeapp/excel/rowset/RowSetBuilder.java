@@ -1,5 +1,6 @@
 package com.jeeapp.excel.rowset;
 
+import com.jeeapp.excel.model.CellValueType;
 import com.jeeapp.excel.model.Row;
 
 /**
@@ -48,13 +49,26 @@ public final class RowSetBuilder {
 		return this;
 	}
 
+	public RowSetBuilder withRow(int rowNum, String[] cellValues, CellValueType[] cellTypes, double[] numericValues) {
+		this.row = new Row(rowNum, cellValues, cellTypes, numericValues);
+		return this;
+	}
+
 	public RowSetBuilder withNullRow() {
 		this.row = null;
 		return this;
 	}
 
+	RowSetBuilder withRow(Row row) {
+		this.row = row;
+		return this;
+	}
+
 	public RowSet build() {
-		RowSetImpl rowSetImpl = new RowSetImpl();
+		return build(new RowSetImpl());
+	}
+
+	RowSet build(RowSetImpl rowSetImpl) {
 		rowSetImpl.setSheetIndex(sheetIndex);
 		rowSetImpl.setSheetName(sheetName);
 		rowSetImpl.setLastRowNum(lastRowNum);
@@ -1,5 +1,8 @@
 package com.jeeapp.excel.rowset;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Justice
  */
@@ -14,4 +17,15 @@ public interface RowSetMapper<T> {
 			return new MappingResult<>(ex.getRow());
 		}
 	}
+
+	/**
+	 * 按顺序映射一批行，映射失败的行返回带错误信息的结果
+	 */
+	default List<MappingResult<T>> mapBatch(List<RowSet> rowSets) {
+		List<MappingResult<T>> mappingResults = new ArrayList<>(rowSets.size());
+		for (RowSet rowSet : rowSets) {
+			mappingResults.add(getMappingResult(rowSet));
+		}
+		return mappingResults;
+	}
 }
@@ -0,0 +1,182 @@
+package com.jeeapp.excel.rowset;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+/**
+ * 按下游请求的数量拉取行的发布者，解析在指定的线程池上进行，未被请求的行不会被解析也不会被缓存；
+ * 接口与 reactive streams 的 Publisher/Subscriber/Subscription 一一对应，可以直接适配
+ * @author Justice
+ */
+@Slf4j
+public class RowSetPublisher {
+
+	private final RowSetReader rowSetReader;
+
+	private final Executor executor;
+
+	private final AtomicBoolean subscribed = new AtomicBoolean();
+
+	public RowSetPublisher(RowSetReader rowSetReader, Executor executor) {
+		Assert.notNull(rowSetReader, "rowSetReader must not be null");
+		Assert.notNull(executor, "executor must not be null");
+		this.rowSetReader = rowSetReader;
+		this.executor = executor;
+	}
+
+	/**
+	 * 只能订阅一次，读取结束、出错或取消后关闭读取器
+	 */
+	public void subscribe(Subscriber subscriber) {
+		Assert.notNull(subscriber, "subscriber must not be null");
+		if (!subscribed.compareAndSet(false, true)) {
+			subscriber.onSubscribe(new Subscription() {
+
+				@Override
+				public void request(long n) {
+				}
+
+				@Override
+				public void cancel() {
+				}
+			});
+			subscriber.onError(new IllegalStateException("RowSetPublisher allows only a single subscriber"));
+			return;
+		}
+		subscriber.onSubscribe(new RowSetSubscription(subscriber));
+	}
+
+	public interface Subscriber {
+
+		void onSubscribe(Subscription subscription);
+
+		void onNext(RowSet rowSet);
+
+		void onError(Throwable throwable);
+
+		void onComplete();
+	}
+
+	public interface Subscription {
+
+		void request(long n);
+
+		void cancel();
+	}
+
+	private final class RowSetSubscription implements Subscription, Runnable {
+
+		private final Subscriber subscriber;
+
+		private final AtomicLong requested = new AtomicLong();
+
+		private final AtomicInteger wip = new AtomicInteger();
+
+		private volatile boolean cancelled;
+
+		private volatile Throwable invalidRequest;
+
+		private boolean done;
+
+		RowSetSubscription(Subscriber subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest = new IllegalArgumentException("request must be greater than 0 but was " + n);
+			} else {
+				requested.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+			}
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			schedule();
+		}
+
+		private void schedule() {
+			// only one drain runs at a time, so the reader is never touched by two threads at once
+			if (wip.getAndIncrement() == 0) {
+				executor.execute(this);
+			}
+		}
+
+		@Override
+		public void run() {
+			int missed = 1;
+			do {
+				if (!done) {
+					drain();
+				}
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void drain() {
+			long demand = requested.get();
+			while (demand != 0 && !cancelled && invalidRequest == null) {
+				long emitted = 0;
+				while (emitted != demand && !cancelled && invalidRequest == null) {
+					RowSet rowSet;
+					try {
+						rowSet = rowSetReader.read();
+					} catch (Throwable e) {
+						terminate(e);
+						return;
+					}
+					if (rowSet == null) {
+						terminate(null);
+						return;
+					}
+					try {
+						subscriber.onNext(rowSet);
+					} catch (Throwable e) {
+						// a failing subscriber cancels its subscription, the reader is closed and the error reported
+						cancelled = true;
+						terminate(e);
+						return;
+					}
+					emitted++;
+				}
+				demand = requested.addAndGet(-emitted);
+			}
+			if (cancelled) {
+				done = true;
+				close();
+			} else if (invalidRequest != null) {
+				terminate(invalidRequest);
+			}
+		}
+
+		private void terminate(Throwable throwable) {
+			done = true;
+			close();
+			try {
+				if (throwable == null) {
+					subscriber.onComplete();
+				} else {
+					subscriber.onError(throwable);
+				}
+			} catch (Throwable e) {
+				log.warn("Subscriber failed to handle termination", e);
+			}
+		}
+
+		private void close() {
+			try {
+				rowSetReader.close();
+			} catch (Exception e) {
+				log.warn("Unable to close reader", e);
+			}
+		}
+	}
+}
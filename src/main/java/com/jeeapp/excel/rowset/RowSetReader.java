@@ -1,49 +1,187 @@
 package com.jeeapp.excel.rowset;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.util.ZipSecureFile;
 import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.springframework.util.Assert;
 
 /**
  * @author Justice
  */
-public interface RowSetReader extends Iterable<RowSet> {
+public interface RowSetReader extends Iterable<RowSet>, AutoCloseable {
 
 	RowSet read() throws Exception;
 
+	/**
+	 * 一次读取最多 max 行，读取完毕时返回空列表
+	 */
+	default List<RowSet> readBatch(int max) throws Exception {
+		Assert.isTrue(max > 0, "max must be greater than 0");
+		List<RowSet> rowSets = new ArrayList<>(Math.min(max, RowSetSpliterator.BATCH_UNIT));
+		RowSet rowSet;
+		while (rowSets.size() < max && (rowSet = read()) != null) {
+			rowSets.add(rowSet);
+		}
+		return rowSets;
+	}
+
+	/**
+	 * 工作簿中全部工作表的名称，按工作簿中的顺序；不提供名称的实现返回空列表
+	 */
+	default List<String> getSheetNames() throws Exception {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * 释放读取器持有的文件和线程，没有需要释放的资源时不做任何处理
+	 */
+	@Override
+	default void close() throws IOException {
+	}
+
 	static RowSetReader open(InputStream inputStream) throws Exception {
+		return open(inputStream, RowSetReaderOptions.options());
+	}
+
+	static RowSetReader open(InputStream inputStream, RowSetReaderOptions options) throws Exception {
 		InputStream in = FileMagic.prepareToCheckMagic(inputStream);
 		FileMagic fileMagic = FileMagic.valueOf(in);
 		if (fileMagic == FileMagic.OLE2) {
-			return new EventXlsRowSetReader(in);
+			if (options.isPullXls()) {
+				return PrefetchingRowSetReader.wrap(new PullXlsRowSetReader(in, options), options);
+			}
+			return new EventXlsRowSetReader(in, options);
 		} else if (fileMagic == FileMagic.OOXML) {
-			return new StreamingXlsxRowSetReader(in);
+			if (options.isParallel()) {
+				return new ParallelXlsxRowSetReader(in, options);
+			}
+			return PrefetchingRowSetReader.wrap(new StreamingXlsxRowSetReader(in, options), options);
 		} else {
 			throw new IllegalStateException("Your file appears not to be a valid excel file");
 		}
 	}
 
-	@Override
-	default Iterator<RowSet> iterator() {
-		return new Iterator<RowSet>() {
+	/**
+	 * 直接从文件读取，xlsx 通过随机访问的 zip 文件打开，只读取中央目录和正在解析的部件，不需要把整个文件读入内存
+	 */
+	static RowSetReader open(File file) throws Exception {
+		return open(file, RowSetReaderOptions.options());
+	}
+
+	static RowSetReader open(File file, RowSetReaderOptions options) throws Exception {
+		FileMagic fileMagic = FileMagic.valueOf(file);
+		if (fileMagic == FileMagic.OLE2) {
+			if (options.isPullXls()) {
+				return PrefetchingRowSetReader.wrap(new PullXlsRowSetReader(file, options), options);
+			}
+			return new EventXlsRowSetReader(file, options);
+		} else if (fileMagic == FileMagic.OOXML) {
+			if (options.isParallel()) {
+				return new ParallelXlsxRowSetReader(file, options);
+			}
+			return PrefetchingRowSetReader.wrap(new StreamingXlsxRowSetReader(file, options), options);
+		} else {
+			throw new IllegalStateException("Your file appears not to be a valid excel file");
+		}
+	}
+
+	static RowSetReader open(Path path) throws Exception {
+		return open(path.toFile());
+	}
+
+	static RowSetReader open(Path path, RowSetReaderOptions options) throws Exception {
+		return open(path.toFile(), options);
+	}
 
-			private RowSet rowSet;
+	/**
+	 * 以流的方式读取，流关闭时关闭读取器；并行流按批拆分已解析的行并行处理，解析仍是顺序的，
+	 * 复用行对象时不能使用并行流
+	 */
+	default Stream<RowSet> stream() {
+		return StreamSupport.stream(spliterator(), false).onClose(() -> {
+			try {
+				close();
+			} catch (Exception e) {
+				throw new IllegalStateException("Unable to close reader", e);
+			}
+		});
+	}
 
-			@Override
-			public boolean hasNext() {
-				try {
-					rowSet = read();
-					return rowSet != null;
-				} catch (Exception e) {
-					return false;
-				}
+	/**
+	 * 获取全部工作表的元数据，只读取工作簿部件和各工作表开头的记录，不读取行
+	 */
+	static List<SheetInfo> inspect(File file) throws Exception {
+		FileMagic fileMagic = FileMagic.valueOf(file);
+		if (fileMagic == FileMagic.OLE2) {
+			try (POIFSFileSystem fileSystem = new POIFSFileSystem(file, true)) {
+				return WorkbookInspector.inspect(fileSystem);
 			}
+		} else if (fileMagic == FileMagic.OOXML) {
+			ZipSecureFile.setMinInflateRatio(0);
+			OPCPackage opcPackage = OPCPackage.open(file, PackageAccess.READ);
+			try {
+				return WorkbookInspector.inspect(opcPackage);
+			} finally {
+				opcPackage.revert();
+			}
+		} else {
+			throw new IllegalStateException("Your file appears not to be a valid excel file");
+		}
+	}
 
-			@Override
-			public RowSet next() {
-				return rowSet;
+	static List<SheetInfo> inspect(InputStream inputStream) throws Exception {
+		InputStream in = FileMagic.prepareToCheckMagic(inputStream);
+		FileMagic fileMagic = FileMagic.valueOf(in);
+		if (fileMagic == FileMagic.OLE2) {
+			try (POIFSFileSystem fileSystem = new POIFSFileSystem(in)) {
+				return WorkbookInspector.inspect(fileSystem);
 			}
-		};
+		} else if (fileMagic == FileMagic.OOXML) {
+			ZipSecureFile.setMinInflateRatio(0);
+			OPCPackage opcPackage = OPCPackage.open(in);
+			try {
+				return WorkbookInspector.inspect(opcPackage);
+			} finally {
+				opcPackage.revert();
+			}
+		} else {
+			throw new IllegalStateException("Your file appears not to be a valid excel file");
+		}
+	}
+
+	/**
+	 * 按下游请求的数量在指定线程池上读取行
+	 */
+	default RowSetPublisher publisher(Executor executor) {
+		return new RowSetPublisher(this, executor);
+	}
+
+	@Override
+	default Spliterator<RowSet> spliterator() {
+		return new RowSetSpliterator(this);
+	}
+
+	/**
+	 * 读取出错时抛出 {@link IllegalStateException}，多次调用 hasNext 不会跳过行
+	 */
+	@Override
+	default Iterator<RowSet> iterator() {
+		return Spliterators.iterator(spliterator());
 	}
 }
@@ -0,0 +1,238 @@
+package com.jeeapp.excel.rowset;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+import org.springframework.util.Assert;
+
+/**
+ * @author Justice
+ */
+@Getter
+public class RowSetReaderOptions {
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private SharedStringsFactory sharedStringsFactory = SharedStringsFactory.IN_MEMORY;
+
+	private boolean parallel;
+
+	private boolean ordered = true;
+
+	private Executor executor;
+
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	private boolean rawValues;
+
+	private BitSet columns;
+
+	private boolean reuseRowSet;
+
+	private boolean pullXls;
+
+	private Set<String> sheetNames;
+
+	private BitSet sheetIndexes;
+
+	private ReadCheckpoint checkpoint;
+
+	private int startRow;
+
+	private int maxRows = Integer.MAX_VALUE;
+
+	private ReadProgress progress;
+
+	private int prefetch;
+
+	public static RowSetReaderOptions options() {
+		return new RowSetReaderOptions();
+	}
+
+	/**
+	 * 设置共享字符串表的实现，仅对 xlsx 生效
+	 */
+	public RowSetReaderOptions withSharedStringsFactory(SharedStringsFactory sharedStringsFactory) {
+		Assert.notNull(sharedStringsFactory, "sharedStringsFactory must not be null");
+		this.sharedStringsFactory = sharedStringsFactory;
+		return this;
+	}
+
+	/**
+	 * 读取单元格原始值，数值和日期不再格式化，行中同时保存单元格类型和数值
+	 * @see com.jeeapp.excel.model.Row#getRawValue(int)
+	 */
+	public RowSetReaderOptions withRawValues(boolean rawValues) {
+		this.rawValues = rawValues;
+		return this;
+	}
+
+	/**
+	 * 只读取指定的列，其余单元格在解析时直接跳过，例如
+	 * {@code withColumns(mapper.getFieldColumns().values())}
+	 */
+	public RowSetReaderOptions withColumns(Collection<Integer> columns) {
+		Assert.notEmpty(columns, "columns must not be empty");
+		BitSet bitSet = new BitSet();
+		for (Integer column : columns) {
+			Assert.isTrue(column != null && column >= 0, "column must not be negative");
+			bitSet.set(column);
+		}
+		this.columns = bitSet;
+		return this;
+	}
+
+	/**
+	 * 只读取指定的列，其余单元格在解析时直接跳过
+	 */
+	public RowSetReaderOptions withColumns(int... columns) {
+		Assert.notNull(columns, "columns must not be null");
+		return withColumns(Arrays.stream(columns).boxed().collect(Collectors.toList()));
+	}
+
+	/**
+	 * 复用同一个行对象及其单元格数组，返回的行仅在下一次读取前有效，单元格数组末尾可能有多余的空值，
+	 * 适合读取后立即处理的场景，不能与批量读取或并行流一起使用；仅对在调用方线程上解析的读取器生效
+	 */
+	public RowSetReaderOptions withReuseRowSet(boolean reuseRowSet) {
+		this.reuseRowSet = reuseRowSet;
+		return this;
+	}
+
+	/**
+	 * 在调用方线程上拉取 xls 记录并按需组装行，不创建后台线程，适合大量小文件并发导入
+	 */
+	public RowSetReaderOptions withPullXls(boolean pullXls) {
+		this.pullXls = pullXls;
+		return this;
+	}
+
+	/**
+	 * 只读取指定名称的工作表，其余工作表不解析
+	 */
+	public RowSetReaderOptions withSheets(String... sheetNames) {
+		Assert.notEmpty(sheetNames, "sheetNames must not be empty");
+		this.sheetNames = new HashSet<>(Arrays.asList(sheetNames));
+		return this;
+	}
+
+	/**
+	 * 只读取指定序号的工作表，其余工作表不解析
+	 */
+	public RowSetReaderOptions withSheetIndexes(int... sheetIndexes) {
+		Assert.isTrue(sheetIndexes != null && sheetIndexes.length > 0, "sheetIndexes must not be empty");
+		BitSet bitSet = new BitSet();
+		for (int sheetIndex : sheetIndexes) {
+			Assert.isTrue(sheetIndex >= 0, "sheetIndex must not be negative");
+			bitSet.set(sheetIndex);
+		}
+		this.sheetIndexes = bitSet;
+		return this;
+	}
+
+	/**
+	 * 从检查点之后继续读取，检查点之前的工作表不解析，检查点所在工作表之前的行只跳过不组装
+	 */
+	public RowSetReaderOptions withCheckpoint(ReadCheckpoint checkpoint) {
+		this.checkpoint = checkpoint;
+		return this;
+	}
+
+	/**
+	 * 每个工作表从指定行号开始读取，之前的行（例如标题和表头）在解析时直接跳过，不格式化也不组装
+	 */
+	public RowSetReaderOptions withStartRow(int startRow) {
+		Assert.isTrue(startRow >= 0, "startRow must not be negative");
+		this.startRow = startRow;
+		return this;
+	}
+
+	/**
+	 * 每个工作表最多读取的行数，读够后不再解析该工作表的剩余部分
+	 */
+	public RowSetReaderOptions withMaxRows(int maxRows) {
+		Assert.isTrue(maxRows > 0, "maxRows must be greater than 0");
+		this.maxRows = maxRows;
+		return this;
+	}
+
+	/**
+	 * 统计读取进度，可以在其他线程上随时读取
+	 */
+	public RowSetReaderOptions withProgress(ReadProgress progress) {
+		this.progress = progress;
+		return this;
+	}
+
+	boolean hasSheetSelection() {
+		return sheetNames != null || sheetIndexes != null || checkpoint != null;
+	}
+
+	boolean acceptSheet(int sheetIndex, String sheetName) {
+		if (checkpoint != null && sheetIndex < checkpoint.getSheetIndex()) {
+			return false;
+		}
+		if (sheetNames == null && sheetIndexes == null) {
+			return true;
+		}
+		return (sheetNames != null && sheetNames.contains(sheetName))
+			|| (sheetIndexes != null && sheetIndexes.get(sheetIndex));
+	}
+
+	/**
+	 * 工作表中第一个需要组装的行号，之前的行在解析时直接跳过
+	 */
+	int firstRowNum(int sheetIndex) {
+		if (checkpoint != null && sheetIndex == checkpoint.getSheetIndex()) {
+			return Math.max(startRow, checkpoint.getRowNum() + 1);
+		}
+		return startRow;
+	}
+
+	/**
+	 * 并行解析各个工作表，仅对 xlsx 生效；
+	 * 按顺序返回时，当前工作表之后的每个工作表最多预读 {@link #withQueueCapacity(int)} 行，之后等待前面的工作表读完，
+	 * 单个工作表很大时接近顺序解析，此时可增大队列容量或改为交错返回
+	 * @param ordered true 按工作表顺序返回行，false 按解析完成的顺序交错返回行
+	 */
+	public RowSetReaderOptions withParallel(boolean ordered) {
+		this.parallel = true;
+		this.ordered = ordered;
+		return this;
+	}
+
+	/**
+	 * 设置后台解析使用的线程池，未设置时由读取器自行创建并在关闭时销毁；
+	 * 按工作表顺序并行读取时，线程池须按提交顺序执行任务；
+	 * 预读时任务须在其他线程上执行，不支持在提交线程上直接执行任务的线程池，例如 CallerRunsPolicy 拒绝策略
+	 */
+	public RowSetReaderOptions withExecutor(Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * 在后台线程上预先解析行，解析与调用方的处理同时进行，仅对在调用方线程上解析的读取器生效，此时不会复用行对象
+	 * @param prefetch 最多预读的批数，每批 256 行
+	 */
+	public RowSetReaderOptions withPrefetch(int prefetch) {
+		Assert.isTrue(prefetch > 0, "prefetch must be greater than 0");
+		this.prefetch = prefetch;
+		return this;
+	}
+
+	/**
+	 * 设置后台解析预读的最大行数，按顺序并行解析时为每个工作表的预读行数
+	 */
+	public RowSetReaderOptions withQueueCapacity(int queueCapacity) {
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be greater than 0");
+		this.queueCapacity = queueCapacity;
+		return this;
+	}
+}
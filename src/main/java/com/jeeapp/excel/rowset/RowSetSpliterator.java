@@ -0,0 +1,91 @@
+package com.jeeapp.excel.rowset;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * 顺序读取行的 {@link Spliterator}，拆分时把已经解析好的一批行交给其他线程，解析本身始终是顺序的
+ * @author Justice
+ */
+class RowSetSpliterator implements Spliterator<RowSet> {
+
+	static final int BATCH_UNIT = 1 << 10;
+
+	static final int MAX_BATCH = 1 << 16;
+
+	private final RowSetReader rowSetReader;
+
+	private boolean finished;
+
+	private int batch;
+
+	RowSetSpliterator(RowSetReader rowSetReader) {
+		this.rowSetReader = rowSetReader;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super RowSet> action) {
+		RowSet rowSet = next();
+		if (rowSet == null) {
+			return false;
+		}
+		action.accept(rowSet);
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super RowSet> action) {
+		RowSet rowSet;
+		while ((rowSet = next()) != null) {
+			action.accept(rowSet);
+		}
+	}
+
+	@Override
+	public Spliterator<RowSet> trySplit() {
+		if (finished) {
+			return null;
+		}
+		// grow the batch on every split so that small sheets are not split into too many tasks
+		int n = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+		RowSet[] rowSets = new RowSet[n];
+		int j = 0;
+		RowSet rowSet;
+		while (j < n && (rowSet = next()) != null) {
+			rowSets[j++] = rowSet;
+		}
+		if (j == 0) {
+			return null;
+		}
+		batch = j;
+		return Spliterators.spliterator(rowSets, 0, j, characteristics());
+	}
+
+	private RowSet next() {
+		if (finished) {
+			return null;
+		}
+		try {
+			RowSet rowSet = rowSetReader.read();
+			finished = rowSet == null;
+			return rowSet;
+		} catch (RuntimeException e) {
+			finished = true;
+			throw e;
+		} catch (Exception e) {
+			finished = true;
+			throw new IllegalStateException("Unable to read row", e);
+		}
+	}
+
+	@Override
+	public long estimateSize() {
+		return Long.MAX_VALUE;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+}
@@ -0,0 +1,31 @@
+package com.jeeapp.excel.rowset;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.model.SharedStrings;
+
+/**
+ * @author Justice
+ */
+@FunctionalInterface
+public interface SharedStringsFactory {
+
+	/**
+	 * 共享字符串表全部加载到堆内存
+	 */
+	SharedStringsFactory IN_MEMORY = ReadOnlySharedStringsTable::new;
+
+	/**
+	 * 共享字符串表写入内存映射的临时文件
+	 */
+	SharedStringsFactory FILE_BACKED = FileBackedSharedStrings::new;
+
+	/**
+	 * 共享字符串表写入内存映射的临时文件，并指定缓存的字符串数量
+	 */
+	static SharedStringsFactory fileBacked(int cacheSize) {
+		return opcPackage -> new FileBackedSharedStrings(opcPackage, cacheSize);
+	}
+
+	SharedStrings create(OPCPackage opcPackage) throws Exception;
+}
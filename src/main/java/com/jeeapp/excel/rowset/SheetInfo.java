@@ -0,0 +1,64 @@
+package com.jeeapp.excel.rowset;
+
+import java.io.Serializable;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 工作表元数据，由 {@link RowSetReader#inspect(java.io.File)} 在不读取行的情况下获取
+ * @author Justice
+ */
+@Getter
+@ToString
+public class SheetInfo implements Serializable {
+
+	private static final long serialVersionUID = 5378252716936911032L;
+
+	private final int index;
+
+	private final String name;
+
+	/**
+	 * 工作表声明的使用区域，例如 A1:F25，工作表未声明时为 null
+	 */
+	private final String dimension;
+
+	/**
+	 * 使用区域的第一行行号，未知时为 -1
+	 */
+	private final int firstRowNum;
+
+	/**
+	 * 使用区域的最后一行行号，未知或工作表为空时为 -1
+	 */
+	private final int lastRowNum;
+
+	/**
+	 * 工作表部件解压后的字节数，xls 为工作表记录的字节数，未知时为 -1
+	 */
+	private final long size;
+
+	/**
+	 * 工作表部件压缩后的字节数，xls 没有压缩，与 size 相同，未知时为 -1
+	 */
+	private final long compressedSize;
+
+	SheetInfo(int index, String name, String dimension, int firstRowNum, int lastRowNum, long size,
+		long compressedSize) {
+		this.index = index;
+		this.name = name;
+		this.dimension = dimension;
+		this.firstRowNum = firstRowNum;
+		this.lastRowNum = lastRowNum;
+		this.size = size;
+		this.compressedSize = compressedSize;
+	}
+
+	/**
+	 * 根据使用区域估算的行数，未知时为 -1
+	 */
+	public int getEstimatedRows() {
+		return firstRowNum < 0 || lastRowNum < 0 ? -1 : lastRowNum - firstRowNum + 1;
+	}
+}
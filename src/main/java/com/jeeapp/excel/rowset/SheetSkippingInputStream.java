@@ -0,0 +1,126 @@
+package com.jeeapp.excel.rowset;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 按字节区间读取 xls 工作簿流，区间之外的工作表直接跳过而不解析其中的记录
+ * @author Justice
+ */
+class SheetSkippingInputStream extends FilterInputStream {
+
+	private long position;
+
+	private long[] ranges;
+
+	private int range;
+
+	private long target;
+
+	private long markPosition;
+
+	SheetSkippingInputStream(InputStream in) {
+		super(in);
+	}
+
+	/**
+	 * 设置之后需要读取的字节区间，依次为各区间的起始和结束位置
+	 */
+	void setRanges(long[] ranges) {
+		this.ranges = ranges;
+		this.range = 0;
+	}
+
+	/**
+	 * 跳到指定位置之后再继续读取，用于读完所需的行后直接跳过工作表的剩余部分
+	 */
+	void skipTo(long target) {
+		this.target = Math.max(this.target, target);
+	}
+
+	private long remaining() throws IOException {
+		while (position < target) {
+			long skipped = in.skip(target - position);
+			if (skipped <= 0) {
+				return 0;
+			}
+			position += skipped;
+		}
+		if (ranges == null) {
+			return Long.MAX_VALUE;
+		}
+		while (range < ranges.length / 2 && position >= ranges[range * 2 + 1]) {
+			range++;
+		}
+		if (range == ranges.length / 2) {
+			return 0;
+		}
+		long start = ranges[range * 2];
+		while (position < start) {
+			long skipped = in.skip(start - position);
+			if (skipped <= 0) {
+				return 0;
+			}
+			position += skipped;
+		}
+		return ranges[range * 2 + 1] - position;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (remaining() <= 0) {
+			return -1;
+		}
+		int b = in.read();
+		if (b >= 0) {
+			position++;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		long remaining = remaining();
+		if (remaining <= 0) {
+			return -1;
+		}
+		int n = in.read(b, off, (int) Math.min(len, remaining));
+		if (n > 0) {
+			position += n;
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = in.skip(Math.min(n, remaining()));
+		position += skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(in.available(), remaining());
+	}
+
+	/**
+	 * 支持 mark 时 POI 不会再套一层 {@link java.io.BufferedInputStream}，否则预读的字节会越过需要跳过的位置
+	 */
+	@Override
+	public boolean markSupported() {
+		return in.markSupported();
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		in.mark(readlimit);
+		markPosition = position;
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		in.reset();
+		position = markPosition;
+	}
+}
@@ -0,0 +1,173 @@
+package com.jeeapp.excel.rowset;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FilePassRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.ZipPackagePart;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.springframework.util.xml.StaxUtils;
+
+/**
+ * 只读取工作簿部件和各工作表开头的记录来获取工作表元数据，不解析行，也不加载共享字符串表和样式表
+ * @author Justice
+ */
+final class WorkbookInspector {
+
+	private WorkbookInspector() {
+	}
+
+	static List<SheetInfo> inspect(OPCPackage opcPackage) throws Exception {
+		XSSFReader reader = new XSSFReader(opcPackage);
+		XSSFReader.SheetIterator sheetIterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+		List<SheetInfo> sheets = new ArrayList<>();
+		int sheetIndex = 0;
+		while (sheetIterator.hasNext()) {
+			String dimension;
+			try (InputStream is = sheetIterator.next()) {
+				dimension = readDimension(is);
+			}
+			PackagePart part = sheetIterator.getSheetPart();
+			long size = part.getSize();
+			long compressedSize = -1;
+			if (part instanceof ZipPackagePart && ((ZipPackagePart) part).getZipArchive() != null) {
+				compressedSize = ((ZipPackagePart) part).getZipArchive().getCompressedSize();
+			}
+			int firstRowNum = -1;
+			int lastRowNum = -1;
+			if (dimension != null) {
+				CellRangeAddress range = CellRangeAddress.valueOf(dimension);
+				firstRowNum = range.getFirstRow();
+				lastRowNum = range.getLastRow();
+			}
+			sheets.add(new SheetInfo(sheetIndex++, sheetIterator.getSheetName(), dimension, firstRowNum, lastRowNum,
+				size, compressedSize));
+		}
+		return Collections.unmodifiableList(sheets);
+	}
+
+	/**
+	 * 读取 {@code <dimension>} 元素，遇到 {@code <sheetData>} 时停止，不再解压之后的内容
+	 */
+	private static String readDimension(InputStream is) throws Exception {
+		XMLStreamReader xmlStreamReader = StaxUtils.createDefensiveInputFactory().createXMLStreamReader(is);
+		try {
+			while (xmlStreamReader.hasNext()) {
+				if (xmlStreamReader.next() != XMLStreamConstants.START_ELEMENT) {
+					continue;
+				}
+				String localName = xmlStreamReader.getLocalName();
+				if ("dimension".equals(localName)) {
+					return xmlStreamReader.getAttributeValue(null, "ref");
+				}
+				if ("sheetData".equals(localName)) {
+					return null;
+				}
+			}
+			return null;
+		} finally {
+			xmlStreamReader.close();
+		}
+	}
+
+	static List<SheetInfo> inspect(POIFSFileSystem fileSystem) throws IOException {
+		String workbookName = HSSFWorkbook.getWorkbookDirEntryName(fileSystem.getRoot());
+		long streamSize = ((DocumentEntry) fileSystem.getRoot().getEntry(workbookName)).getSize();
+		List<BoundSheetRecord> boundSheetRecords = new ArrayList<>();
+		DimensionsRecord[] dimensions = null;
+		List<BoundSheetRecord> ordered = null;
+		try (SheetSkippingInputStream workbookStream = new SheetSkippingInputStream(
+			fileSystem.createDocumentInputStream(workbookName))) {
+			RecordFactoryInputStream recordStream = new RecordFactoryInputStream(workbookStream, false);
+			boolean encrypted = false;
+			int bofDepth = 0;
+			int visited = 0;
+			BoundSheetRecord current = null;
+			Record record;
+			while ((record = recordStream.nextRecord()) != null) {
+				switch (record.getSid()) {
+					case BoundSheetRecord.sid:
+						boundSheetRecords.add((BoundSheetRecord) record);
+						break;
+					case FilePassRecord.sid:
+						encrypted = true;
+						break;
+					case BOFRecord.sid:
+						bofDepth++;
+						if (bofDepth == 1 && ordered != null && visited < ordered.size()) {
+							current = ordered.get(visited++);
+						}
+						break;
+					case DimensionsRecord.sid:
+						if (current == null || bofDepth != 1) {
+							break;
+						}
+						dimensions[boundSheetRecords.indexOf(current)] = (DimensionsRecord) record;
+						current = null;
+						if (!encrypted) {
+							// the rest of the sheet is not needed, decryption however depends on reading every record
+							bofDepth = 0;
+							workbookStream.skipTo(visited < ordered.size() ? ordered.get(visited).getPositionOfBof() : Long.MAX_VALUE);
+						}
+						break;
+					case EOFRecord.sid:
+						bofDepth--;
+						if (bofDepth == 0 && ordered == null) {
+							ordered = Arrays.asList(BoundSheetRecord.orderByBofPosition(boundSheetRecords));
+							dimensions = new DimensionsRecord[boundSheetRecords.size()];
+						} else if (bofDepth == 0) {
+							current = null;
+						}
+						break;
+					default:
+						break;
+				}
+			}
+		}
+		List<SheetInfo> sheets = new ArrayList<>();
+		if (ordered == null) {
+			return sheets;
+		}
+		for (int i = 0; i < boundSheetRecords.size(); i++) {
+			BoundSheetRecord boundSheetRecord = boundSheetRecords.get(i);
+			int position = ordered.indexOf(boundSheetRecord);
+			long end = position + 1 < ordered.size() ? ordered.get(position + 1).getPositionOfBof() : streamSize;
+			long size = end - boundSheetRecord.getPositionOfBof();
+			DimensionsRecord dimensionsRecord = dimensions[i];
+			String dimension = null;
+			int firstRowNum = -1;
+			int lastRowNum = -1;
+			if (dimensionsRecord != null) {
+				// the last row and column of a DimensionsRecord are one past the used area
+				firstRowNum = dimensionsRecord.getFirstRow();
+				lastRowNum = dimensionsRecord.getLastRow() - 1;
+				if (lastRowNum >= firstRowNum && dimensionsRecord.getLastCol() > dimensionsRecord.getFirstCol()) {
+					dimension = new CellRangeAddress(firstRowNum, lastRowNum, dimensionsRecord.getFirstCol(),
+						dimensionsRecord.getLastCol() - 1).formatAsString();
+				} else {
+					lastRowNum = -1;
+				}
+			}
+			sheets.add(new SheetInfo(i, boundSheetRecord.getSheetname(), dimension, firstRowNum, lastRowNum, size, size));
+		}
+		return Collections.unmodifiableList(sheets);
+	}
+}
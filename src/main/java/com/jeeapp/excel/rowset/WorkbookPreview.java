@@ -0,0 +1,75 @@
+package com.jeeapp.excel.rowset;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * 工作簿预览，包含全部工作表名称及每个工作表的前若干行，读取完成后立即关闭读取器
+ * @author Justice
+ */
+@Getter
+public class WorkbookPreview {
+
+	private final List<String> sheetNames;
+
+	/**
+	 * 按工作表序号分组的行
+	 */
+	private final Map<Integer, List<RowSet>> rows;
+
+	private WorkbookPreview(List<String> sheetNames, Map<Integer, List<RowSet>> rows) {
+		this.sheetNames = sheetNames;
+		this.rows = Collections.unmodifiableMap(rows);
+	}
+
+	public static WorkbookPreview of(File file, int maxRows) throws Exception {
+		return of(RowSetReader.open(file, RowSetReaderOptions.options().withMaxRows(maxRows)));
+	}
+
+	/**
+	 * 工作簿的目录位于文件末尾，从流中无法只读取开头部分，先将流写入临时文件再按文件预览，读取后删除临时文件并关闭流
+	 */
+	public static WorkbookPreview of(InputStream inputStream, int maxRows) throws Exception {
+		Path file = Files.createTempFile("fastexcel-preview", ".tmp");
+		try {
+			try (InputStream in = inputStream) {
+				Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return of(file.toFile(), maxRows);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * 读取读取器返回的全部行后关闭读取器，读取器须通过 {@link RowSetReaderOptions#withMaxRows(int)} 限制行数且不能复用行对象
+	 */
+	public static WorkbookPreview of(RowSetReader rowSetReader) throws Exception {
+		try (RowSetReader reader = rowSetReader) {
+			List<String> sheetNames = reader.getSheetNames();
+			Map<Integer, List<RowSet>> rows = new LinkedHashMap<>();
+			RowSet rowSet;
+			while ((rowSet = reader.read()) != null) {
+				rows.computeIfAbsent(rowSet.getSheetIndex(), key -> new ArrayList<>()).add(rowSet);
+			}
+			return new WorkbookPreview(sheetNames, rows);
+		}
+	}
+
+	/**
+	 * 指定工作表的行，工作表为空或未读取时返回空列表
+	 */
+	public List<RowSet> getRows(int sheetIndex) {
+		return rows.getOrDefault(sheetIndex, Collections.emptyList());
+	}
+}
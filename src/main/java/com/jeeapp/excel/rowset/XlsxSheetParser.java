@@ -0,0 +1,394 @@
+package com.jeeapp.excel.rowset;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.InputStream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.Styles;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.springframework.util.xml.StaxUtils;
+import com.jeeapp.excel.model.CellValueType;
+import com.jeeapp.excel.util.CellFormats;
+import com.jeeapp.excel.util.CellFormats.CellFormat;
+
+/**
+ * 直接从工作表部件中拉取 {@code <row>}、{@code <c>}、{@code <v>} 和 {@code <is>} 元素，
+ * 得到的值和 {@link org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler} 相同，不需要把每个元素转换成 SAX 属性
+ * @author Justice
+ */
+@Slf4j
+class XlsxSheetParser implements Closeable {
+
+	private final RowSetBuilder rowSetBuilder;
+
+	private final CellFormats cellFormats;
+
+	private final StringBuilder value;
+
+	private final SharedStrings sharedStrings;
+
+	private final Styles styles;
+
+	private final RowBuffer rowBuffer;
+
+	private final int firstRowNum;
+
+	private final int maxRows;
+
+	private final ReadProgress progress;
+
+	private int rows;
+
+	private InputStream sheetInputStream;
+
+	private XMLStreamReader xmlStreamReader;
+
+	private int nextRowNum;
+
+	private int nextColumn;
+
+	private CellType cellType;
+
+	private int cellColumn;
+
+	private String cellStyle;
+
+	private boolean skipCell;
+
+	private boolean vIsOpen;
+
+	private boolean isIsOpen;
+
+	private boolean rphIsOpen;
+
+	XlsxSheetParser(InputStream sheetInputStream, int sheetIndex, String sheetName, SharedStrings sharedStrings,
+		Styles styles, CellFormats cellFormats, RowSetReaderOptions options, boolean reuse) throws XMLStreamException {
+		this.sheetInputStream = sheetInputStream;
+		this.sharedStrings = sharedStrings;
+		this.styles = styles;
+		this.rowSetBuilder = RowSetBuilder.builder().withSheet(sheetIndex, sheetName);
+		this.cellFormats = cellFormats;
+		this.value = new StringBuilder(64);
+		this.rowBuffer = new RowBuffer(options, reuse);
+		this.firstRowNum = options.firstRowNum(sheetIndex);
+		this.maxRows = options.getMaxRows();
+		this.progress = options.getProgress();
+		this.xmlStreamReader = StaxUtils.createDefensiveInputFactory().createXMLStreamReader(sheetInputStream);
+	}
+
+	/**
+	 * 读取下一行，工作表结束时返回 null
+	 */
+	RowSet read() throws XMLStreamException {
+		if (rows >= maxRows) {
+			// the rest of the part is never inflated
+			return null;
+		}
+		while (xmlStreamReader != null && xmlStreamReader.hasNext()) {
+			int type = xmlStreamReader.next();
+			if (type == XMLStreamConstants.CHARACTERS || type == XMLStreamConstants.CDATA) {
+				if (vIsOpen) {
+					value.append(xmlStreamReader.getTextCharacters(), xmlStreamReader.getTextStart(),
+						xmlStreamReader.getTextLength());
+				}
+			} else if (type == XMLStreamConstants.START_ELEMENT) {
+				startElement(xmlStreamReader.getLocalName());
+			} else if (type == XMLStreamConstants.END_ELEMENT) {
+				String localName = xmlStreamReader.getLocalName();
+				if ("row".equals(localName)) {
+					nextRowNum = rowBuffer.getRowNum() + 1;
+					rows++;
+					if (progress != null) {
+						progress.addRow();
+					}
+					return rowBuffer.build(rowSetBuilder);
+				}
+				endElement(localName);
+			}
+		}
+		return null;
+	}
+
+	private void startElement(String localName) throws XMLStreamException {
+		switch (localName) {
+			case "row":
+				String r = xmlStreamReader.getAttributeValue(null, "r");
+				int rowNum = r != null ? Integer.parseInt(r) - 1 : nextRowNum;
+				if (rowNum < firstRowNum) {
+					skipElement();
+					nextRowNum = rowNum + 1;
+					break;
+				}
+				rowBuffer.startRow(rowNum);
+				nextColumn = 0;
+				presizeFromSpans(xmlStreamReader.getAttributeValue(null, "spans"));
+				break;
+			case "c":
+				cellType = CellType.of(xmlStreamReader.getAttributeValue(null, "t"));
+				cellStyle = xmlStreamReader.getAttributeValue(null, "s");
+				int column = columnIndex(xmlStreamReader.getAttributeValue(null, "r"));
+				cellColumn = column < 0 ? nextColumn : column;
+				nextColumn = cellColumn + 1;
+				skipCell = !rowBuffer.accept(cellColumn);
+				break;
+			case "v":
+				vIsOpen = !skipCell;
+				value.setLength(0);
+				break;
+			case "is":
+				isIsOpen = true;
+				value.setLength(0);
+				break;
+			case "t":
+				vIsOpen = isIsOpen && !rphIsOpen && !skipCell;
+				break;
+			case "rPh":
+				rphIsOpen = true;
+				break;
+			case "dimension":
+				// ref is formatted as A1 or A1:F25. Take the last numbers of this string and use it as lastRowNum
+				String ref = xmlStreamReader.getAttributeValue(null, "ref");
+				if (ref != null && ref.indexOf(':') > -1) {
+					CellRangeAddress range = CellRangeAddress.valueOf(ref);
+					rowSetBuilder.withLastRowNum(range.getLastRow() - range.getFirstRow() + 1);
+					rowBuffer.presize(range.getLastColumn() + 1);
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * spans 形如 1:31，是行中单元格的列范围提示，取其结束列预先分配
+	 */
+	private void presizeFromSpans(String spans) {
+		if (spans == null) {
+			return;
+		}
+		int colon = spans.lastIndexOf(':');
+		int columns = 0;
+		for (int i = colon + 1; i < spans.length(); i++) {
+			char c = spans.charAt(i);
+			if (c < '0' || c > '9') {
+				return;
+			}
+			columns = columns * 10 + (c - '0');
+			if (columns > RowBuffer.MAX_COLUMNS) {
+				return;
+			}
+		}
+		rowBuffer.presize(columns);
+	}
+
+	/**
+	 * 跳过当前元素及其子元素，不解析单元格
+	 */
+	private void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int type = xmlStreamReader.next();
+			if (type == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (type == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private void endElement(String localName) {
+		switch (localName) {
+			case "v":
+				vIsOpen = false;
+				if (skipCell) {
+					break;
+				}
+				if (rowBuffer.isRawValues()) {
+					rawCell();
+				} else {
+					rowBuffer.cell(cellColumn, getCellValue());
+				}
+				break;
+			case "t":
+				vIsOpen = false;
+				break;
+			case "rPh":
+				rphIsOpen = false;
+				break;
+			case "is":
+				isIsOpen = false;
+				if (skipCell) {
+					break;
+				}
+				rowBuffer.cell(cellColumn, new XSSFRichTextString(value.toString()).getString(), CellValueType.STRING, 0);
+				break;
+			default:
+				break;
+		}
+	}
+
+	private String getCellValue() {
+		switch (cellType) {
+			case BOOLEAN:
+				return value.length() > 0 && value.charAt(0) == '0' ? "FALSE" : "TRUE";
+			case ERROR:
+				return "ERROR:" + value;
+			case INLINE_STRING:
+				return new XSSFRichTextString(value.toString()).getString();
+			case SST_STRING:
+				try {
+					return getSharedString(Integer.parseInt(value.toString()));
+				} catch (NumberFormatException ex) {
+					log.error("Failed to parse SST index '{}'", value, ex);
+					return null;
+				}
+			case FORMULA:
+				return value.toString();
+			default:
+				return formatNumber(value.toString());
+		}
+	}
+
+	private void rawCell() {
+		switch (cellType) {
+			case BOOLEAN:
+				boolean b = value.length() > 0 && value.charAt(0) != '0';
+				rowBuffer.cell(cellColumn, b ? "TRUE" : "FALSE", CellValueType.BOOLEAN, b ? 1 : 0);
+				break;
+			case ERROR:
+				rowBuffer.cell(cellColumn, value.toString(), CellValueType.ERROR, 0);
+				break;
+			case NUMBER:
+				String n = value.toString();
+				if (n.isEmpty()) {
+					break;
+				}
+				try {
+					double d = Double.parseDouble(n);
+					boolean date = resolveFormat().isDate();
+					rowBuffer.cell(cellColumn, n, date ? CellValueType.DATE : CellValueType.NUMERIC, d);
+				} catch (NumberFormatException e) {
+					// Formula is a String result not a Numeric one
+					rowBuffer.cell(cellColumn, n, CellValueType.STRING, 0);
+				}
+				break;
+			default:
+				rowBuffer.cell(cellColumn, getCellValue(), CellValueType.STRING, 0);
+				break;
+		}
+	}
+
+	private String getSharedString(int idx) {
+		return sharedStrings.getItemAt(idx).getString();
+	}
+
+	/**
+	 * 解析当前单元格样式的数据格式，按样式序号缓存，同一样式只查找一次
+	 */
+	private CellFormat resolveFormat() {
+		int styleIndex = cellStyle != null ? Integer.parseInt(cellStyle) : 0;
+		CellFormat format = cellFormats.get(styleIndex);
+		if (format != null) {
+			return format;
+		}
+		XSSFCellStyle style = null;
+		if (styles != null && (cellStyle != null || styles.getNumCellStyles() > 0)) {
+			style = styles.getStyleAt(styleIndex);
+		}
+		if (style == null) {
+			return cellFormats.put(styleIndex, -1, null);
+		}
+		return cellFormats.put(styleIndex, style.getDataFormat(), style.getDataFormatString());
+	}
+
+	private String formatNumber(String n) {
+		if (n.isEmpty()) {
+			return n;
+		}
+		CellFormat format = resolveFormat();
+		if (format.getFormatString() == null) {
+			return n;
+		}
+		try {
+			return cellFormats.format(Double.parseDouble(n), format);
+		} catch (NumberFormatException e) {
+			// Formula is a String result not a Numeric one
+			return n;
+		}
+	}
+
+	/**
+	 * 解析单元格引用（例如 {@code AB12}）中的列字母，返回从 0 开始的列序，不创建 {@link org.apache.poi.ss.util.CellReference}；
+	 * 没有列字母时返回 -1
+	 */
+	static int columnIndex(String ref) {
+		if (ref == null) {
+			return -1;
+		}
+		int col = 0;
+		int length = ref.length();
+		for (int i = 0; i < length; i++) {
+			char c = ref.charAt(i);
+			if (c >= 'A' && c <= 'Z') {
+				col = col * 26 + (c - 'A' + 1);
+			} else if (c >= 'a' && c <= 'z') {
+				col = col * 26 + (c - 'a' + 1);
+			} else if (c != '$') {
+				break;
+			}
+		}
+		return col - 1;
+	}
+
+	@Override
+	public void close() {
+		if (xmlStreamReader != null) {
+			try {
+				xmlStreamReader.close();
+			} catch (Exception ignore) {
+			}
+			xmlStreamReader = null;
+		}
+		if (sheetInputStream != null) {
+			try {
+				sheetInputStream.close();
+			} catch (Exception ignore) {
+			}
+			sheetInputStream = null;
+		}
+	}
+
+	/**
+	 * {@code <c>} 元素的单元格数据类型
+	 */
+	enum CellType {
+
+		BOOLEAN, ERROR, FORMULA, INLINE_STRING, SST_STRING, NUMBER;
+
+		static CellType of(String t) {
+			if (t == null) {
+				return NUMBER;
+			}
+			switch (t) {
+				case "b":
+					return BOOLEAN;
+				case "e":
+					return ERROR;
+				case "inlineStr":
+					return INLINE_STRING;
+				case "s":
+					return SST_STRING;
+				case "str":
+					return FORMULA;
+				default:
+					return NUMBER;
+			}
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package com.jeeapp.excel.rowset;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Getter;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.Styles;
+import com.jeeapp.excel.util.CellFormats;
+
+/**
+ * xlsx 工作簿的包、共享字符串表、样式表及工作表列表
+ * @author Justice
+ */
+@Getter
+class XlsxWorkbook implements Closeable {
+
+	private final OPCPackage opcPackage;
+
+	private final SharedStrings sharedStrings;
+
+	private final Styles styles;
+
+	/**
+	 * 样式属于工作簿，各工作表共用同一个格式缓存
+	 */
+	private final CellFormats cellFormats;
+
+	private final List<Sheet> sheets;
+
+	private final List<String> sheetNames;
+
+	private final RowSetReaderOptions options;
+
+	private XlsxWorkbook(OPCPackage opcPackage, RowSetReaderOptions options) throws Exception {
+		this.opcPackage = opcPackage;
+		this.options = options;
+		XSSFReader reader = new XSSFReader(opcPackage);
+		XSSFReader.SheetIterator sheetIterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+		List<Sheet> sheets = new ArrayList<>();
+		List<String> sheetNames = new ArrayList<>();
+		int sheetIndex = 0;
+		while (sheetIterator.hasNext()) {
+			// the iterator opens every part, only the part reference is kept and unselected parts are never read
+			sheetIterator.next().close();
+			String sheetName = sheetIterator.getSheetName();
+			sheetNames.add(sheetName);
+			if (options.acceptSheet(sheetIndex, sheetName)) {
+				sheets.add(new Sheet(sheetIndex, sheetName, sheetIterator.getSheetPart()));
+			}
+			sheetIndex++;
+		}
+		this.sheets = Collections.unmodifiableList(sheets);
+		ReadProgress progress = options.getProgress();
+		if (progress != null) {
+			progress.start();
+			for (Sheet sheet : sheets) {
+				progress.addTotalBytes(sheet.getPart().getSize());
+			}
+		}
+		this.sheetNames = Collections.unmodifiableList(sheetNames);
+		this.styles = reader.getStylesTable();
+		this.cellFormats = new CellFormats();
+		this.sharedStrings = options.getSharedStringsFactory().create(opcPackage);
+	}
+
+	static XlsxWorkbook open(InputStream inputStream, RowSetReaderOptions options) throws Exception {
+		ZipSecureFile.setMinInflateRatio(0);
+		return open(OPCPackage.open(inputStream), options);
+	}
+
+	/**
+	 * 以只读方式随机访问 zip 文件，部件在解析时才解压
+	 */
+	static XlsxWorkbook open(File file, RowSetReaderOptions options) throws Exception {
+		ZipSecureFile.setMinInflateRatio(0);
+		return open(OPCPackage.open(file, PackageAccess.READ), options);
+	}
+
+	private static XlsxWorkbook open(OPCPackage opcPackage, RowSetReaderOptions options) throws Exception {
+		try {
+			return new XlsxWorkbook(opcPackage, options);
+		} catch (Exception e) {
+			opcPackage.revert();
+			throw e;
+		}
+	}
+
+	/**
+	 * 打开工作表解析器，使用工作簿的格式缓存和格式化器，各工作表须在同一线程上依次解析
+	 * @param reuse 是否复用同一个行对象，仅在调用方线程上逐行消费时可用
+	 */
+	XlsxSheetParser openSheet(Sheet sheet, boolean reuse) throws Exception {
+		return openSheet(sheet, reuse, cellFormats);
+	}
+
+	/**
+	 * 打开工作表解析器，并行解析时传入共享格式缓存、各自使用格式化器的 {@link CellFormats}
+	 */
+	XlsxSheetParser openSheet(Sheet sheet, boolean reuse, CellFormats cellFormats) throws Exception {
+		InputStream is = sheet.getPart().getInputStream();
+		if (options.getProgress() != null) {
+			is = new ProgressInputStream(is, options.getProgress());
+		}
+		try {
+			return new XlsxSheetParser(is, sheet.getIndex(), sheet.getName(), sharedStrings, styles, cellFormats, options,
+				reuse);
+		} catch (Exception e) {
+			is.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (sharedStrings instanceof Closeable) {
+				((Closeable) sharedStrings).close();
+			}
+		} finally {
+			opcPackage.revert();
+			if (options.getProgress() != null) {
+				options.getProgress().finish();
+			}
+		}
+	}
+
+	@Getter
+	static final class Sheet {
+
+		private final int index;
+
+		private final String name;
+
+		private final PackagePart part;
+
+		Sheet(int index, String name, PackagePart part) {
+			this.index = index;
+			this.name = name;
+			this.part = part;
+		}
+	}
+}
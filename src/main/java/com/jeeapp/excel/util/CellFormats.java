@@ -0,0 +1,103 @@
+package com.jeeapp.excel.util;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+/**
+ * 按样式序号缓存数据格式及是否为日期格式，并复用同一个 {@link DataFormatter} 及其已编译的格式；
+ * 样式属于工作簿，每个工作簿使用一个，格式化器非线程安全，多个线程解析同一工作簿时通过 {@link #withFormatter(DataFormatter)} 共享格式缓存
+ * @author Justice
+ */
+public class CellFormats {
+
+	private final DataFormatter formatter;
+
+	private final Cache cache;
+
+	public CellFormats() {
+		this(new DataFormatter());
+	}
+
+	public CellFormats(DataFormatter formatter) {
+		this(formatter, new Cache());
+	}
+
+	private CellFormats(DataFormatter formatter, Cache cache) {
+		this.formatter = formatter;
+		this.cache = cache;
+	}
+
+	/**
+	 * 返回共享同一格式缓存、使用指定格式化器的实例
+	 */
+	public CellFormats withFormatter(DataFormatter formatter) {
+		return new CellFormats(formatter, cache);
+	}
+
+	/**
+	 * 取得已缓存的数据格式，未缓存时返回 null
+	 */
+	public CellFormat get(int styleIndex) {
+		CellFormat[] formats = cache.formats;
+		return styleIndex >= 0 && styleIndex < formats.length ? formats[styleIndex] : null;
+	}
+
+	/**
+	 * 缓存样式的数据格式，格式字符串为空时使用内置格式
+	 * @param formatIndex 数据格式序号，样式不存在时为 -1
+	 */
+	public CellFormat put(int styleIndex, int formatIndex, String formatString) {
+		CellFormat format = new CellFormat(formatIndex, formatString);
+		cache.put(styleIndex, format);
+		return format;
+	}
+
+	public String format(double value, CellFormat format) {
+		return formatter.formatRawCellContents(value, format.getFormatIndex(), format.getFormatString());
+	}
+
+	public String format(double value, int formatIndex, String formatString) {
+		return formatter.formatRawCellContents(value, formatIndex, formatString);
+	}
+
+	/**
+	 * 数组引用为 volatile，扩容时加锁；元素的字段均为 final，并发读到 null 时只是重新解析一次
+	 */
+	private static final class Cache {
+
+		private volatile CellFormat[] formats = new CellFormat[0];
+
+		synchronized void put(int styleIndex, CellFormat format) {
+			if (styleIndex >= formats.length) {
+				formats = Arrays.copyOf(formats, Math.max(styleIndex + 1, formats.length * 2));
+			}
+			formats[styleIndex] = format;
+		}
+	}
+
+	@Getter
+	public static final class CellFormat {
+
+		private final int formatIndex;
+
+		/**
+		 * 数据格式，样式不存在或没有格式时为 null
+		 */
+		private final String formatString;
+
+		private final boolean date;
+
+		CellFormat(int formatIndex, String formatString) {
+			if (formatString == null && formatIndex >= 0) {
+				formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+			}
+			this.formatIndex = formatIndex;
+			this.formatString = formatString;
+			this.date = formatString != null && DateUtil.isADateFormat(formatIndex, formatString);
+		}
+	}
+}
@@ -15,7 +15,6 @@ import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.BuiltinFormats;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Font;
@@ -98,6 +97,12 @@ public class CellUtils {
 			CellUtil.BORDER_TOP
 		)));
 
+	/**
+	 * 样式序号只在所属工作簿内有效，这里只复用格式化器及其已编译的格式；
+	 * 每个调用过的线程保留一个格式化器，线程池中的线程存活期间不会释放，占用的内存随用过的格式数量增长
+	 */
+	private static final ThreadLocal<CellFormats> CELL_FORMATS = ThreadLocal.withInitial(CellFormats::new);
+
 	private static CellStyle getStyle(CellStyle originalStyle, Workbook workbook, Map<String, Object> properties) {
 		CellStyle newStyle = null;
 		Map<String, Object> values = getFormatProperties(originalStyle);
@@ -618,7 +623,6 @@ public class CellUtils {
 		if (formatString == null) {
 			formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
 		}
-		final DataFormatter formatter = new DataFormatter();
-		return formatter.formatRawCellContents(cellValue, formatIndex, formatString);
+		return CELL_FORMATS.get().format(cellValue, formatIndex, formatString);
 	}
 }